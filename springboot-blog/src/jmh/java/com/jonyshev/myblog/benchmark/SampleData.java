@@ -0,0 +1,86 @@
+package com.jonyshev.myblog.benchmark;
+
+import com.jonyshev.myblog.model.Comment;
+import com.jonyshev.myblog.model.Post;
+import com.jonyshev.myblog.model.PostSummary;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Данные для бенчмарков, близкие к реальным: русский текст в несколько абзацев, 3-5 тегов, картинка.
+ */
+public final class SampleData {
+
+    private static final String[] WORDS = {
+            "spring", "java", "транзакция", "запрос", "индекс", "кэш", "пост", "комментарий", "шаблон",
+            "производительность", "база", "данных", "поток", "память", "сервер", "страница", "лента",
+            "и", "в", "на", "для", "это", "что", "как", "не", "с", "по", "при", "же", "только"
+    };
+    private static final String[] TAGS = {"java", "spring", "sql", "postgres", "thymeleaf", "jdbc", "kotlin", "docker"};
+
+    private SampleData() {
+    }
+
+    public static String text(Random random, int paragraphs, int wordsPerParagraph) {
+        StringBuilder text = new StringBuilder();
+        for (int p = 0; p < paragraphs; p++) {
+            if (p > 0) {
+                text.append("\r\n");
+            }
+            for (int w = 0; w < wordsPerParagraph; w++) {
+                if (w > 0) {
+                    text.append(w % 12 == 0 ? ". " : " ");
+                }
+                text.append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            text.append('.');
+        }
+        return text.toString();
+    }
+
+    public static String tags(Random random) {
+        StringBuilder tags = new StringBuilder();
+        int count = 3 + random.nextInt(3);
+        for (int i = 0; i < count; i++) {
+            tags.append(i == 0 ? "" : " ").append(TAGS[random.nextInt(TAGS.length)]);
+        }
+        return tags.toString();
+    }
+
+    public static String imagePath(long id) {
+        return "3f2b8c1e-5d4a-4e7f-9a61-" + String.format("%012d", id) + "_photo.jpg";
+    }
+
+    public static Post post(Random random, long id) {
+        return Post.builder()
+                .id(id)
+                .title("Пост номер " + id + " о " + WORDS[random.nextInt(WORDS.length)])
+                .text(text(random, 8, 60))
+                .imagePath(imagePath(id))
+                .tags(List.of(tags(random).split(" ")))
+                .likesCount(random.nextInt(500))
+                .version(random.nextInt(10))
+                .commentsCount(20 + random.nextInt(30))
+                .build();
+    }
+
+    public static List<PostSummary> summaries(Random random, int count) {
+        List<PostSummary> posts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Post post = post(random, 1000 - i);
+            posts.add(new PostSummary(post.getId(), post.getTitle(), post.getImagePath(), post.getTags(),
+                    post.getTextPreview(), post.getLikesCount(), post.getCommentsCount(), post.getVersion()));
+        }
+        return posts;
+    }
+
+    public static List<Comment> comments(Random random, int count) {
+        List<Comment> comments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            comments.add(new Comment((long) i + 1, text(random, 1, 15 + random.nextInt(30))));
+        }
+        return comments;
+    }
+}
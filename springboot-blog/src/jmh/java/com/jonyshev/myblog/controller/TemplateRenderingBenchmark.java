@@ -0,0 +1,140 @@
+package com.jonyshev.myblog.controller;
+
+import com.jonyshev.myblog.benchmark.SampleData;
+import com.jonyshev.myblog.model.Comment;
+import com.jonyshev.myblog.model.PageCursor;
+import com.jonyshev.myblog.model.Paging;
+import com.jonyshev.myblog.model.Post;
+import com.jonyshev.myblog.model.PostSummary;
+import com.jonyshev.myblog.service.ImageVariants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.support.GenericWebApplicationContext;
+import org.springframework.web.servlet.View;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.spring6.templateresolver.SpringResourceTemplateResolver;
+import org.thymeleaf.spring6.view.ThymeleafViewResolver;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Полный рендеринг posts.html и post.html через ThymeleafView, как в DispatcherServlet,
+ * с шаблонами из classpath:/templates/, как у автоконфигурации Thymeleaf.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TemplateRenderingBenchmark {
+
+    // 0 - кэш карточек выключен, каждая карточка рендерится заново
+    @Param({"0", "10000"})
+    public long cardCacheSize;
+
+    private MockServletContext servletContext;
+    private GenericWebApplicationContext applicationContext;
+    private View postsView;
+    private View postView;
+    private Map<String, Object> postsModel;
+    private Map<String, Object> postModel;
+
+    @Setup
+    public void setUp() throws Exception {
+        servletContext = new MockServletContext();
+        applicationContext = new GenericWebApplicationContext(servletContext);
+
+        SpringResourceTemplateResolver templateResolver = new SpringResourceTemplateResolver();
+        templateResolver.setApplicationContext(applicationContext);
+        templateResolver.setPrefix("classpath:/templates/");
+        templateResolver.setSuffix(".html");
+        templateResolver.setCharacterEncoding("UTF-8");
+        templateResolver.setCacheable(true);
+        SpringTemplateEngine templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(templateResolver);
+        templateEngine.setEnableSpringELCompiler(true);
+
+        applicationContext.registerBean("imageVariants", ImageVariants.class, () -> new ImageVariants(1, 50_000_000));
+        applicationContext.registerBean("postCardRenderer", PostCardRenderer.class, () -> new PostCardRenderer(
+                templateEngine, applicationContext.getBean(ImageVariants.class), servletContext, cardCacheSize));
+        applicationContext.refresh();
+        servletContext.setAttribute(WebApplicationContext.ROOT_WEB_APPLICATION_CONTEXT_ATTRIBUTE, applicationContext);
+
+        ThymeleafViewResolver viewResolver = new ThymeleafViewResolver();
+        viewResolver.setTemplateEngine(templateEngine);
+        viewResolver.setCharacterEncoding("UTF-8");
+        viewResolver.setApplicationContext(applicationContext);
+        postsView = viewResolver.resolveViewName("posts", Locale.ROOT);
+        postView = viewResolver.resolveViewName("post", Locale.ROOT);
+
+        Random random = new Random(42);
+        List<PostSummary> posts = SampleData.summaries(random, 10);
+        postsModel = new HashMap<>();
+        postsModel.put("posts", posts);
+        postsModel.put("search", "java spring");
+        postsModel.put("paging", new Paging(2, 10, true, true,
+                PageCursor.encode(posts.get(posts.size() - 1).id()), PageCursor.encode(posts.get(0).id()), 1000));
+
+        Post post = SampleData.post(random, 1000);
+        List<Comment> comments = SampleData.comments(random, 20);
+        postModel = new HashMap<>();
+        postModel.put("post", post);
+        postModel.put("postId", post.getId());
+        postModel.put("comments", comments);
+        postModel.put("newestFirst", false);
+        postModel.put("commentsCursor", PageCursor.encode(comments.get(comments.size() - 1).getId()));
+
+        if (!posts().contains(posts.get(posts.size() - 1).title()) || !post().contains(comments.get(0).getText())) {
+            throw new IllegalStateException("Шаблоны отрендерились без данных модели");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        applicationContext.close();
+    }
+
+    @Benchmark
+    public String posts() throws Exception {
+        return render(postsView, postsModel, "/posts");
+    }
+
+    @Benchmark
+    public String post() throws Exception {
+        return render(postView, postModel, "/posts/1000");
+    }
+
+    private String render(View view, Map<String, Object> model, String uri) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(servletContext, "GET", uri);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+        try {
+            view.render(model, request, response);
+            return response.getContentAsString();
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+}
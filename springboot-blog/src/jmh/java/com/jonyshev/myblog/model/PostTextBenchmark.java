@@ -0,0 +1,54 @@
+package com.jonyshev.myblog.model;
+
+import com.jonyshev.myblog.benchmark.SampleData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PostTextBenchmark {
+
+    @Param({"1", "8", "40"})
+    public int paragraphs;
+
+    private Post post;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        post = SampleData.post(random, 1000);
+        post.setText(SampleData.text(random, paragraphs, 60));
+    }
+
+    @Benchmark
+    public String textPreview() {
+        return post.getTextPreview();
+    }
+
+    @Benchmark
+    public List<String> textParts() {
+        return post.getTextParts();
+    }
+
+    @Benchmark
+    public String tagsAsText() {
+        return post.getTagsAsText();
+    }
+}
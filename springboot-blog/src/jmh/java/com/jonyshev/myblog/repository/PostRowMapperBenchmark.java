@@ -0,0 +1,73 @@
+package com.jonyshev.myblog.repository;
+
+import com.jonyshev.myblog.benchmark.SampleData;
+import com.jonyshev.myblog.model.Post;
+import com.jonyshev.myblog.model.PostSummary;
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PostRowMapperBenchmark {
+
+    private PostRepositoryImpl repository;
+    private SimpleResultSet row;
+    private String tags;
+
+    @Setup
+    public void setUp() throws SQLException {
+        Random random = new Random(42);
+        repository = new PostRepositoryImpl(new JdbcTemplate());
+        tags = SampleData.tags(random);
+        String text = SampleData.text(random, 8, 60);
+
+        row = new SimpleResultSet();
+        row.addColumn("id", Types.BIGINT, 19, 0);
+        row.addColumn("title", Types.VARCHAR, 255, 0);
+        row.addColumn("text", Types.VARCHAR, Integer.MAX_VALUE, 0);
+        row.addColumn("text_head", Types.VARCHAR, PostSummary.PREVIEW_SOURCE_LENGTH, 0);
+        row.addColumn("image_path", Types.VARCHAR, 255, 0);
+        row.addColumn("tags", Types.VARCHAR, 255, 0);
+        row.addColumn("likes_count", Types.INTEGER, 10, 0);
+        row.addColumn("version", Types.BIGINT, 19, 0);
+        row.addColumn("comments_count", Types.INTEGER, 10, 0);
+        row.addRow(1000L, "Пост номер 1000", text, text.substring(0, PostSummary.PREVIEW_SOURCE_LENGTH),
+                SampleData.imagePath(1000), tags, 137, 3L, 42);
+        row.next();
+    }
+
+    @Benchmark
+    public Post postRowMapper() throws SQLException {
+        return repository.postRowMapper.mapRow(row, 0);
+    }
+
+    @Benchmark
+    public PostSummary summaryRowMapper() throws SQLException {
+        return repository.summaryRowMapper.mapRow(row, 0);
+    }
+
+    @Benchmark
+    public List<String> splitTags() {
+        return PostRepositoryImpl.splitTags(tags);
+    }
+}
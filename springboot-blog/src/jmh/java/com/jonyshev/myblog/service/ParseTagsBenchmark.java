@@ -0,0 +1,33 @@
+package com.jonyshev.myblog.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseTagsBenchmark {
+
+    // Как приходит из формы: одиночный тег, обычный набор и набор с лишними пробелами
+    @Param({"java", "java spring sql postgres", "  java  spring   sql postgres  thymeleaf "})
+    public String tags;
+
+    @Benchmark
+    public List<String> parseTags() {
+        return PostServiceImpl.parseTags(tags);
+    }
+}
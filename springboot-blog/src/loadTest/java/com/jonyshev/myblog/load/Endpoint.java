@@ -0,0 +1,30 @@
+package com.jonyshev.myblog.load;
+
+/**
+ * Виды запросов нагрузочного прогона и их доля в смеси по умолчанию.
+ */
+enum Endpoint {
+    FEED("feed", 35),
+    SEARCH("search", 15),
+    POST("post", 30),
+    LIKE("like", 8),
+    COMMENT("comment", 4),
+    IMAGE("image", 8);
+
+    final String key;
+    final int defaultWeight;
+
+    Endpoint(String key, int defaultWeight) {
+        this.key = key;
+        this.defaultWeight = defaultWeight;
+    }
+
+    static Endpoint of(String key) {
+        for (Endpoint endpoint : values()) {
+            if (endpoint.key.equals(key)) {
+                return endpoint;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестный вид запроса: " + key);
+    }
+}
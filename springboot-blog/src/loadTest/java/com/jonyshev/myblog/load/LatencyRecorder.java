@@ -0,0 +1,46 @@
+package com.jonyshev.myblog.load;
+
+import java.util.Arrays;
+
+/**
+ * Задержки одного клиента по одному виду запросов. Без синхронизации - у каждого клиента свои экземпляры,
+ * объединяются после прогона.
+ */
+final class LatencyRecorder {
+
+    private long[] nanos = new long[1024];
+    private int size;
+    private long errors;
+
+    void record(long latencyNanos, boolean error) {
+        if (size == nanos.length) {
+            nanos = Arrays.copyOf(nanos, size * 2);
+        }
+        nanos[size++] = latencyNanos;
+        if (error) {
+            errors++;
+        }
+    }
+
+    void addTo(LatencyRecorder total) {
+        for (int i = 0; i < size; i++) {
+            total.record(nanos[i], false);
+        }
+        total.errors += errors;
+    }
+
+    LoadReport.EndpointStats stats(double seconds) {
+        long[] sorted = Arrays.copyOf(nanos, size);
+        Arrays.sort(sorted);
+        return new LoadReport.EndpointStats(size, errors, size / seconds,
+                percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99),
+                size == 0 ? 0 : sorted[size - 1] / 1_000_000.0);
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1)] / 1_000_000.0;
+    }
+}
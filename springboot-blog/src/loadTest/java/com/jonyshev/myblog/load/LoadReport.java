@@ -0,0 +1,49 @@
+package com.jonyshev.myblog.load;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Итог прогона в том виде, в каком он пишется в JSON. Задержки - в миллисекундах, throughput - запросов в секунду.
+ */
+record LoadReport(String startedAt, String database, long posts, int concurrency, int durationSeconds,
+                  double throughput, Map<String, EndpointStats> endpoints) {
+
+    record EndpointStats(long requests, long errors, double throughput, double p50, double p95, double p99,
+                         double max) {
+
+        double errorRate() {
+            return requests == 0 ? 0 : (double) errors / requests;
+        }
+    }
+
+    /**
+     * Сравнение с эталонным прогоном: p95 и p99 не должны вырасти больше чем на tolerance (доля)
+     * плюс toleranceMs (защита от шума на субмиллисекундных задержках), доля ошибок - не выше maxErrorRate.
+     */
+    List<String> regressionsAgainst(LoadReport baseline, double tolerance, double toleranceMs, double maxErrorRate) {
+        List<String> regressions = new ArrayList<>();
+        endpoints.forEach((name, current) -> {
+            if (current.errorRate() > maxErrorRate) {
+                regressions.add(String.format("%s: доля ошибок %.2f%% > %.2f%%",
+                        name, current.errorRate() * 100, maxErrorRate * 100));
+            }
+            EndpointStats base = baseline == null ? null : baseline.endpoints().get(name);
+            if (base == null) {
+                return;
+            }
+            check(regressions, name, "p95", current.p95(), base.p95(), tolerance, toleranceMs);
+            check(regressions, name, "p99", current.p99(), base.p99(), tolerance, toleranceMs);
+        });
+        return regressions;
+    }
+
+    private static void check(List<String> regressions, String name, String metric, double current, double base,
+                              double tolerance, double toleranceMs) {
+        double limit = base * (1 + tolerance) + toleranceMs;
+        if (current > limit) {
+            regressions.add(String.format("%s: %s %.2f мс > %.2f мс (эталон %.2f мс)", name, metric, current, limit, base));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.jonyshev.myblog.load;
+
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Параметры прогона из системных свойств load.*; load.app.X=Y передаётся приложению как свойство X=Y.
+ * Объём и форма данных задаются свойствами dataset.* генератора.
+ */
+record LoadSettings(String dbUrl, String dbUsername, String dbPassword, int concurrency, int warmupSeconds, int durationSeconds, int images,
+                    Map<Endpoint, Integer> mix, Path report, Path baseline,
+                    double tolerance, double toleranceMs, double maxErrorRate, Map<String, String> appProperties) {
+
+    static final String DEFAULT_DB_URL = "jdbc:h2:mem:load-test;DB_CLOSE_DELAY=-1";
+    private static final String APP_PREFIX = "load.app.";
+
+    static LoadSettings fromSystemProperties() {
+        String baseline = System.getProperty("load.baseline");
+        Map<String, String> appProperties = new LinkedHashMap<>();
+        System.getProperties().stringPropertyNames().stream()
+                .filter(name -> name.startsWith(APP_PREFIX))
+                .forEach(name -> appProperties.put(name.substring(APP_PREFIX.length()), System.getProperty(name)));
+        return new LoadSettings(
+                System.getProperty("load.db.url", DEFAULT_DB_URL),
+                System.getProperty("load.db.username", "sa"),
+                System.getProperty("load.db.password", ""),
+                Integer.getInteger("load.concurrency", 64),
+                Integer.getInteger("load.warmup-seconds", 10),
+                Integer.getInteger("load.duration-seconds", 30),
+                Integer.getInteger("load.images", 20),
+                mix(System.getProperty("load.mix", "")),
+                Path.of(System.getProperty("load.report", "report.json")),
+                baseline == null ? null : Path.of(baseline),
+                Double.parseDouble(System.getProperty("load.tolerance", "0.15")),
+                Double.parseDouble(System.getProperty("load.tolerance-ms", "2")),
+                Double.parseDouble(System.getProperty("load.max-error-rate", "0.01")),
+                appProperties);
+    }
+
+    boolean postgres() {
+        return dbUrl.startsWith("jdbc:postgresql:");
+    }
+
+    // Формат: feed:35,search:15,post:30 - не перечисленные виды получают вес по умолчанию, 0 выключает вид
+    private static Map<Endpoint, Integer> mix(String value) {
+        Map<Endpoint, Integer> mix = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : Endpoint.values()) {
+            mix.put(endpoint, endpoint.defaultWeight);
+        }
+        for (String part : value.split(",")) {
+            if (part.isBlank()) {
+                continue;
+            }
+            String[] keyAndWeight = part.trim().split(":");
+            if (keyAndWeight.length != 2) {
+                throw new IllegalArgumentException("Ожидается вид:вес, получено: " + part);
+            }
+            mix.put(Endpoint.of(keyAndWeight[0]), Integer.parseInt(keyAndWeight[1]));
+        }
+        return mix;
+    }
+}
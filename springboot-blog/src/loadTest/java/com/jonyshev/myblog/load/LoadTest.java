@@ -0,0 +1,304 @@
+package com.jonyshev.myblog.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.jonyshev.myblog.MyblogApplication;
+import com.jonyshev.myblog.dataset.DatasetGenerator;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Нагрузочный прогон springboot-blog: наполняет базу генератором датасета, поднимает приложение на случайном порту
+ * и гоняет смесь запросов (лента, поиск по тегам, пост, лайки, комментарии, картинки) с заданной конкурентностью.
+ * Итог - p50/p95/p99 и throughput по видам запросов в JSON; с load.baseline прогон падает при росте хвостовых задержек.
+ * Запуск: ./gradlew loadTest [-Dload.concurrency=128 -Dload.baseline=baseline.json -Ddataset.posts=100000]
+ */
+public class LoadTest {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final Path UPLOADS = Path.of("uploads");
+
+    private final LoadSettings settings;
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final Endpoint[] weighted;
+    private String baseUrl;
+    private long minId;
+    private long maxId;
+    private List<String> tags;
+
+    LoadTest(LoadSettings settings) {
+        this.settings = settings;
+        List<Endpoint> endpoints = new ArrayList<>();
+        settings.mix().forEach((endpoint, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                endpoints.add(endpoint);
+            }
+        });
+        if (endpoints.isEmpty()) {
+            throw new IllegalArgumentException("В смеси load.mix нет ни одного вида запросов");
+        }
+        this.weighted = endpoints.toArray(Endpoint[]::new);
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.getProperties().putIfAbsent("dataset.posts", "10000");
+        System.getProperties().putIfAbsent("dataset.clean", "true");
+        LoadSettings settings = LoadSettings.fromSystemProperties();
+
+        List<String> regressions = new LoadTest(settings).run();
+        if (!regressions.isEmpty()) {
+            System.out.println("Регрессия относительно эталона:");
+            regressions.forEach(regression -> System.out.println("  " + regression));
+            System.exit(1);
+        }
+    }
+
+    List<String> run() throws Exception {
+        try (HikariDataSource dataSource = dataSource()) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            prepareDatabase(dataSource);
+            writeImages();
+
+            try (ConfigurableApplicationContext app = startApplication()) {
+                baseUrl = "http://localhost:" + ((WebServerApplicationContext) app).getWebServer().getPort();
+                awaitImageVariants();
+                minId = jdbcTemplate.queryForObject("SELECT COALESCE(MIN(id), 0) FROM posts", Long.class);
+                maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM posts", Long.class);
+                tags = jdbcTemplate.queryForList(
+                        "SELECT tag FROM post_tags GROUP BY tag ORDER BY COUNT(*) DESC LIMIT 50", String.class);
+                if (maxId == 0) {
+                    throw new IllegalStateException("В базе нет постов - задайте dataset.posts > 0");
+                }
+
+                System.out.printf("прогрев %d с, concurrency=%d%n", settings.warmupSeconds(), settings.concurrency());
+                drive(settings.warmupSeconds());
+                System.out.printf("замер %d с%n", settings.durationSeconds());
+                Instant startedAt = Instant.now();
+                Map<Endpoint, LatencyRecorder> latencies = drive(settings.durationSeconds());
+
+                LoadReport report = report(startedAt, latencies,
+                        jdbcTemplate.queryForObject("SELECT COUNT(*) FROM posts", Long.class));
+                print(report);
+                ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+                objectMapper.writeValue(settings.report().toFile(), report);
+                System.out.println("отчёт: " + settings.report().toAbsolutePath());
+
+                LoadReport baseline = settings.baseline() == null
+                        ? null
+                        : objectMapper.readValue(settings.baseline().toFile(), LoadReport.class);
+                return report.regressionsAgainst(baseline,
+                        settings.tolerance(), settings.toleranceMs(), settings.maxErrorRate());
+            }
+        }
+    }
+
+    private HikariDataSource dataSource() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(settings.dbUrl());
+        dataSource.setUsername(settings.dbUsername());
+        dataSource.setPassword(settings.dbPassword());
+        dataSource.setMaximumPoolSize(2);
+        return dataSource;
+    }
+
+    // Данные готовятся до старта: TagIndex, FullTextIndex и PostCounter строятся по базе при запуске приложения
+    private void prepareDatabase(HikariDataSource dataSource) throws Exception {
+        ResourceDatabasePopulator schema = new ResourceDatabasePopulator(new ClassPathResource("schema.sql"));
+        if (settings.postgres()) {
+            schema.addScript(new ClassPathResource("schema-postgresql.sql"));
+        }
+        schema.execute(dataSource);
+
+        DatasetGenerator.Settings dataset = DatasetGenerator.Settings.fromSystemProperties();
+        if (dataset.posts() > 0) {
+            DatasetGenerator.Result result = new DatasetGenerator(dataSource, dataset).generate();
+            System.out.printf("датасет: posts=%,d, comments=%,d за %,d мс%n",
+                    result.posts(), result.comments(), result.millis());
+        }
+    }
+
+    private void writeImages() throws IOException {
+        Files.createDirectories(UPLOADS);
+        for (int i = 0; i < settings.images(); i++) {
+            Path file = UPLOADS.resolve(imageName(i));
+            if (Files.exists(file)) {
+                continue;
+            }
+            BufferedImage image = new BufferedImage(1200, 800, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = image.createGraphics();
+            graphics.setPaint(new GradientPaint(0, 0, Color.getHSBColor(i / 20f, 0.6f, 0.9f),
+                    1200, 800, Color.getHSBColor(i / 20f + 0.5f, 0.6f, 0.4f)));
+            graphics.fillRect(0, 0, 1200, 800);
+            graphics.dispose();
+            ImageIO.write(image, "png", file.toFile());
+        }
+    }
+
+    private ConfigurableApplicationContext startApplication() {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("server.port", 0);
+        properties.put("spring.datasource.url", settings.dbUrl());
+        properties.put("spring.datasource.username", settings.dbUsername());
+        properties.put("spring.datasource.password", settings.dbPassword());
+        if (!settings.postgres()) {
+            properties.put("spring.datasource.driver-class-name", "org.h2.Driver");
+            properties.put("spring.sql.init.schema-locations", "classpath:schema.sql");
+        }
+        properties.put("logging.level.root", "WARN");
+        properties.putAll(settings.appProperties());
+        // Аргументами командной строки, а не properties(): те ниже по приоритету, чем application.properties
+        String[] args = properties.entrySet().stream()
+                .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                .toArray(String[]::new);
+        return new SpringApplicationBuilder(MyblogApplication.class).run(args);
+    }
+
+    private void awaitImageVariants() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        for (int i = 0; i < settings.images(); i++) {
+            while (!Files.exists(UPLOADS.resolve("variants").resolve("thumb").resolve(imageName(i)))
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(100);
+            }
+        }
+    }
+
+    private Map<Endpoint, LatencyRecorder> drive(int seconds) throws Exception {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        List<Future<Map<Endpoint, LatencyRecorder>>> clients = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < settings.concurrency(); i++) {
+                clients.add(executor.submit(() -> {
+                    Map<Endpoint, LatencyRecorder> own = recorders();
+                    while (System.nanoTime() < deadline) {
+                        Endpoint endpoint = weighted[ThreadLocalRandom.current().nextInt(weighted.length)];
+                        HttpRequest request = request(endpoint);
+                        long start = System.nanoTime();
+                        boolean error;
+                        try {
+                            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                            error = status >= 400;
+                        } catch (IOException e) {
+                            error = true;
+                        }
+                        own.get(endpoint).record(System.nanoTime() - start, error);
+                    }
+                    return own;
+                }));
+            }
+        }
+
+        Map<Endpoint, LatencyRecorder> total = recorders();
+        for (Future<Map<Endpoint, LatencyRecorder>> result : clients) {
+            result.get().forEach((endpoint, recorder) -> recorder.addTo(total.get(endpoint)));
+        }
+        return total;
+    }
+
+    private HttpRequest request(Endpoint endpoint) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return switch (endpoint) {
+            case FEED -> get("/posts?pageSize=10&pageNumber=" + (1 + random.nextInt(3))
+                    + (random.nextInt(4) == 0 ? "&withTotal=true" : ""));
+            // Популярные теги запрашивают чаще: минимум из двух равномерных даёт убывающую частоту
+            case SEARCH -> get("/posts?pageSize=10&search=" + URLEncoder.encode(
+                    tags.get(Math.min(random.nextInt(tags.size()), random.nextInt(tags.size()))), StandardCharsets.UTF_8));
+            case POST -> get("/posts/" + postId(random));
+            case LIKE -> post("/posts/" + postId(random) + "/like", "like=true");
+            case COMMENT -> post("/posts/" + postId(random) + "/comments",
+                    "text=" + URLEncoder.encode("Комментарий нагрузочного прогона", StandardCharsets.UTF_8));
+            case IMAGE -> get(random.nextInt(4) == 0
+                    ? "/uploads/" + imageName(random.nextInt(settings.images()))
+                    : "/uploads/variants/thumb/" + imageName(random.nextInt(settings.images())));
+        };
+    }
+
+    // Половина обращений - к свежему 1% постов, как у ленты "сначала новые"
+    private long postId(ThreadLocalRandom random) {
+        long hot = Math.max(1, (maxId - minId + 1) / 100);
+        return random.nextBoolean() ? maxId - random.nextLong(hot) : random.nextLong(minId, maxId + 1);
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(REQUEST_TIMEOUT).GET().build();
+    }
+
+    private HttpRequest post(String path, String form) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form))
+                .build();
+    }
+
+    private LoadReport report(Instant startedAt, Map<Endpoint, LatencyRecorder> latencies, long posts) {
+        Map<String, LoadReport.EndpointStats> endpoints = new LinkedHashMap<>();
+        long requests = 0;
+        for (Map.Entry<Endpoint, LatencyRecorder> entry : latencies.entrySet()) {
+            LoadReport.EndpointStats stats = entry.getValue().stats(settings.durationSeconds());
+            if (stats.requests() > 0) {
+                endpoints.put(entry.getKey().key, stats);
+                requests += stats.requests();
+            }
+        }
+        return new LoadReport(startedAt.toString(), settings.postgres() ? "postgresql" : "h2", posts,
+                settings.concurrency(), settings.durationSeconds(), (double) requests / settings.durationSeconds(),
+                endpoints);
+    }
+
+    private static void print(LoadReport report) {
+        System.out.printf("%-8s %10s %8s %10s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        report.endpoints().forEach((name, stats) -> System.out.printf("%-8s %,10d %,8d %,10.1f %9.2f %9.2f %9.2f %9.2f%n",
+                name, stats.requests(), stats.errors(), stats.throughput(),
+                stats.p50(), stats.p95(), stats.p99(), stats.max()));
+        System.out.printf("всего %,.1f req/s%n", report.throughput());
+    }
+
+    private static Map<Endpoint, LatencyRecorder> recorders() {
+        Map<Endpoint, LatencyRecorder> recorders = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : Endpoint.values()) {
+            recorders.put(endpoint, new LatencyRecorder());
+        }
+        return recorders;
+    }
+
+    private static String imageName(int index) {
+        return "load-" + index + ".png";
+    }
+}
@@ -0,0 +1,34 @@
+package com.jonyshev.myblog.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class DatabaseConfig {
+
+    // Пул из автоконфигурации оборачивается до того, как его получат JdbcTemplate и менеджер транзакций.
+    // Метрики Hikari при этом сохраняются: Boot достаёт пул из DelegatingDataSource сам
+    @Bean
+    public static BeanPostProcessor instrumentedDataSourcePostProcessor(ObjectProvider<SlowQueryLog> slowQueryLog) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource && !(bean instanceof InstrumentedDataSource)
+                        ? new InstrumentedDataSource(dataSource, slowQueryLog.getIfAvailable())
+                        : bean;
+            }
+        };
+    }
+
+    @Bean
+    public SlowQueryLog slowQueryLog(@Value("${queries.slow.threshold-ms:0}") long thresholdMs,
+                                     @Value("${queries.slow.capacity:100}") int capacity,
+                                     @Value("${queries.slow.explain-sample-rate:0}") double explainSampleRate) {
+        return new SlowQueryLog(thresholdMs, capacity, explainSampleRate);
+    }
+}
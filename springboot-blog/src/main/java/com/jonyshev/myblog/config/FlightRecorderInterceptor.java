@@ -0,0 +1,67 @@
+package com.jonyshev.myblog.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.resource.ResourceHttpRequestHandler;
+
+/**
+ * События JFR {@link ViewRenderEvent} (от конца обработчика до конца рендеринга) и {@link ImageServeEvent}.
+ * Если запись JFR не идёт или событие выключено в профиле, обработчик ничего не делает.
+ */
+public class FlightRecorderInterceptor implements HandlerInterceptor {
+
+    private static final String RENDER_ATTRIBUTE = FlightRecorderInterceptor.class.getName() + ".render";
+    private static final String SERVE_ATTRIBUTE = FlightRecorderInterceptor.class.getName() + ".serve";
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof ResourceHttpRequestHandler) {
+            ImageServeEvent event = new ImageServeEvent();
+            if (event.isEnabled()) {
+                event.begin();
+                request.setAttribute(SERVE_ATTRIBUTE, event);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                           ModelAndView modelAndView) {
+        if (modelAndView == null || modelAndView.getViewName() == null
+                || modelAndView.getViewName().startsWith("redirect:")) {
+            return;
+        }
+        ViewRenderEvent event = new ViewRenderEvent();
+        if (event.isEnabled()) {
+            event.view = modelAndView.getViewName();
+            event.modelSize = modelAndView.getModel().size();
+            event.begin();
+            request.setAttribute(RENDER_ATTRIBUTE, event);
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(RENDER_ATTRIBUTE) instanceof ViewRenderEvent event) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.uri = request.getRequestURI();
+                event.commit();
+            }
+        }
+        if (request.getAttribute(SERVE_ATTRIBUTE) instanceof ImageServeEvent event) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.uri = request.getRequestURI();
+                event.status = response.getStatus();
+                String length = response.getHeader(HttpHeaders.CONTENT_LENGTH);
+                event.bytes = length != null ? Long.parseLong(length) : 0;
+                event.commit();
+            }
+        }
+    }
+}
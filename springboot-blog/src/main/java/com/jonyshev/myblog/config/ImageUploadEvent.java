@@ -0,0 +1,27 @@
+package com.jonyshev.myblog.config;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Сохранение загруженной картинки поста на диск.
+ */
+@Name("myblog.ImageUpload")
+@Label("Image Upload")
+@Category({"MyBlog", "Images"})
+@Description("Сохранение загруженной картинки в каталог uploads")
+@StackTrace(false)
+public class ImageUploadEvent extends Event {
+
+    @Label("File Name")
+    public String fileName;
+
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+}
@@ -0,0 +1,16 @@
+package com.jonyshev.myblog.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    // static - постпроцессор создаётся раньше остальных бинов и не тянет за собой конфигурацию
+    @Bean
+    public static LayerTimingPostProcessor layerTimingPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new LayerTimingPostProcessor(meterRegistry);
+    }
+}
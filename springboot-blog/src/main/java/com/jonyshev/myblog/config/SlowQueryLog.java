@@ -0,0 +1,199 @@
+package com.jonyshev.myblog.config;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Кольцевой буфер последних медленных запросов: нормализованный SQL, параметры, длительность и метод репозитория,
+ * из которого пришёл запрос. Для доли медленных SELECT в PostgreSQL в фоне снимается EXPLAIN (ANALYZE, BUFFERS)
+ * с теми же параметрами - запрос при этом выполняется ещё раз, поэтому доля по умолчанию нулевая.
+ */
+public class SlowQueryLog implements AutoCloseable {
+
+    private static final Log log = LogFactory.getLog(SlowQueryLog.class);
+    private static final String APP_PACKAGE = SlowQueryLog.class.getPackageName().replaceFirst("config$", "");
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final int MAX_VALUE_LENGTH = 200;
+    private static final int EXPLAIN_QUEUE_CAPACITY = 16;
+
+    private final long thresholdNanos;
+    private final double explainSampleRate;
+    private final Entry[] buffer;
+    private final ThreadPoolExecutor explainExecutor;
+    private long sequence;
+    private volatile Boolean postgres;
+
+    public SlowQueryLog(long thresholdMs, int capacity, double explainSampleRate) {
+        this.thresholdNanos = thresholdMs > 0 ? TimeUnit.MILLISECONDS.toNanos(thresholdMs) : Long.MAX_VALUE;
+        this.explainSampleRate = explainSampleRate;
+        this.buffer = new Entry[Math.max(capacity, 1)];
+        this.explainExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(EXPLAIN_QUEUE_CAPACITY), runnable -> {
+            Thread thread = new Thread(runnable, "slow-query-explain");
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    /**
+     * false при пороге 0: журнал выключен, и параметры запросов собирать не нужно.
+     */
+    public boolean isEnabled() {
+        return thresholdNanos != Long.MAX_VALUE;
+    }
+
+    public boolean isSlow(long elapsedNanos) {
+        return elapsedNanos >= thresholdNanos;
+    }
+
+    /**
+     * @param params     параметры по номерам (с 1), как их выставил драйверу вызывающий код
+     * @param dataSource пул без обёртки - через него снимается план
+     */
+    public Entry record(String sql, Map<Integer, Object> params, long elapsedNanos, DataSource dataSource) {
+        List<Object> values = new ArrayList<>(params.size());
+        params.forEach((index, value) -> {
+            while (values.size() < index - 1) {
+                values.add(null);
+            }
+            values.add(value);
+        });
+        String normalized = normalize(sql);
+        List<String> described = describe(values);
+        String caller = caller();
+        Entry entry;
+        synchronized (buffer) {
+            entry = new Entry(++sequence, Instant.now(), normalized, described, elapsedNanos / 1_000_000.0, caller, null);
+            buffer[(int) ((entry.id() - 1) % buffer.length)] = entry;
+        }
+        if (explainSampleRate > 0 && isSelect(sql) && ThreadLocalRandom.current().nextDouble() < explainSampleRate) {
+            explainExecutor.execute(() -> explain(entry.id(), sql, values, dataSource));
+        }
+        return entry;
+    }
+
+    /**
+     * Записи от новых к старым.
+     */
+    public List<Entry> recent() {
+        List<Entry> entries = new ArrayList<>(buffer.length);
+        synchronized (buffer) {
+            for (long id = sequence; id > 0 && id > sequence - buffer.length; id--) {
+                entries.add(buffer[(int) ((id - 1) % buffer.length)]);
+            }
+        }
+        return entries;
+    }
+
+    @Override
+    public void close() {
+        explainExecutor.shutdownNow();
+    }
+
+    static String normalize(String sql) {
+        String normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        return WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+    }
+
+    private void explain(long id, String sql, List<Object> values, DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            if (postgres == null) {
+                postgres = "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName());
+            }
+            if (!postgres) {
+                return;
+            }
+            // ANALYZE выполняет запрос по-настоящему: только SELECT и только в read-only транзакции с откатом
+            connection.setReadOnly(true);
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN (ANALYZE, BUFFERS) " + sql)) {
+                for (int i = 0; i < values.size(); i++) {
+                    statement.setObject(i + 1, values.get(i));
+                }
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        plan.append(rs.getString(1)).append('\n');
+                    }
+                }
+                attachPlan(id, plan.toString());
+            } finally {
+                connection.rollback();
+                connection.setAutoCommit(true);
+                connection.setReadOnly(false);
+            }
+        } catch (SQLException e) {
+            log.debug("Не удалось снять план медленного запроса", e);
+        }
+    }
+
+    private void attachPlan(long id, String plan) {
+        synchronized (buffer) {
+            int slot = (int) ((id - 1) % buffer.length);
+            Entry entry = buffer[slot];
+            if (entry != null && entry.id() == id) {
+                buffer[slot] = new Entry(entry.id(), entry.time(), entry.sql(), entry.params(), entry.millis(),
+                        entry.caller(), plan);
+            }
+        }
+    }
+
+    private static boolean isSelect(String sql) {
+        String head = sql.stripLeading().toLowerCase(Locale.ROOT);
+        return head.startsWith("select") || head.startsWith("with");
+    }
+
+    private static List<String> describe(List<Object> values) {
+        List<String> described = new ArrayList<>(values.size());
+        for (Object value : values) {
+            String text = value instanceof byte[] bytes ? "<" + bytes.length + " байт>" : String.valueOf(value);
+            described.add(text.length() > MAX_VALUE_LENGTH ? text.substring(0, MAX_VALUE_LENGTH) + "..." : text);
+        }
+        return Collections.unmodifiableList(described);
+    }
+
+    // Ближайший метод репозитория в стеке, иначе ближайший метод приложения вне config
+    private static String caller() {
+        return StackWalker.getInstance().walk(frames -> {
+            String fallback = "?";
+            for (StackWalker.StackFrame frame : (Iterable<StackWalker.StackFrame>) frames::iterator) {
+                String className = frame.getClassName();
+                if (!className.startsWith(APP_PACKAGE) || className.startsWith(APP_PACKAGE + "config.")) {
+                    continue;
+                }
+                String method = className.substring(className.lastIndexOf('.') + 1) + "." + frame.getMethodName();
+                if (className.startsWith(APP_PACKAGE + "repository.")) {
+                    return method;
+                }
+                if (fallback.equals("?")) {
+                    fallback = method;
+                }
+            }
+            return fallback;
+        });
+    }
+
+    public record Entry(long id, Instant time, String sql, List<String> params, double millis, String caller,
+                        String plan) {
+    }
+}
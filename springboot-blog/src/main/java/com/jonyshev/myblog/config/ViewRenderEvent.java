@@ -0,0 +1,28 @@
+package com.jonyshev.myblog.config;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Рендеринг шаблона Thymeleaf после обработчика контроллера.
+ */
+@Name("myblog.ViewRender")
+@Label("View Render")
+@Category({"MyBlog", "Web"})
+@Description("Рендеринг шаблона: имя представления, адрес запроса и число атрибутов модели")
+@StackTrace(false)
+public class ViewRenderEvent extends Event {
+
+    @Label("View")
+    public String view;
+
+    @Label("URI")
+    public String uri;
+
+    @Label("Model Size")
+    public int modelSize;
+}
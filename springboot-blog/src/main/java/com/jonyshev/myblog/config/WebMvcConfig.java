@@ -1,20 +1,61 @@
 package com.jonyshev.myblog.config;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 public class WebMvcConfig implements WebMvcConfigurer {
 
+    private static final CacheControl IMAGE_CACHE_CONTROL = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
+
+    private final Environment environment;
+
+    @Autowired
+    public WebMvcConfig(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new QueryBudgetInterceptor(
+                environment.getProperty("queries.budget.statements", Integer.class, 0),
+                environment.getProperty("queries.budget.db-ms", Long.class, 0L)));
+        registry.addInterceptor(new FlightRecorderInterceptor());
+    }
+
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
         Path uploadDir = Paths.get("uploads");
         String uploadPath = uploadDir.toFile().getAbsolutePath();
 
-        registry.addResourceHandler("/uploads/**").addResourceLocations("file:" + uploadPath + "/");
+        registry.addResourceHandler("/images/**", "/uploads/**")
+                .addResourceLocations("file:" + uploadPath + "/")
+                .setCacheControl(IMAGE_CACHE_CONTROL)
+                .setUseLastModified(true)
+                .setEtagGenerator(WebMvcConfig::imageEtag);
+    }
+
+    // Загруженные файлы не перезаписываются (новые называются по SHA-256 содержимого, старые - с UUID-префиксом),
+    // поэтому сильный ETag строится по метаданным файла без чтения содержимого
+    private static String imageEtag(Resource resource) {
+        try {
+            String key = resource.getFilename() + ":" + resource.contentLength() + ":" + resource.lastModified();
+            return DigestUtils.md5DigestAsHex(key.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            return null;
+        }
     }
 }
@@ -0,0 +1,73 @@
+package com.jonyshev.myblog.controller;
+
+import com.jonyshev.myblog.model.PostSummary;
+import com.jonyshev.myblog.service.ImageVariants;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
+
+import java.util.Set;
+
+/**
+ * Кэш отрендеренных карточек ленты. Ключ меняется при правке поста, лайках, комментариях
+ * и появлении уменьшенной картинки, поэтому явная инвалидация не нужна.
+ */
+@Component
+public class PostCardRenderer {
+
+    private final ITemplateEngine templateEngine;
+    private final ImageVariants imageVariants;
+    private final JakartaServletWebApplication webApplication;
+    private final Cache<CardKey, String> cards;
+
+    @Autowired
+    public PostCardRenderer(ITemplateEngine templateEngine, ImageVariants imageVariants, ServletContext servletContext,
+                            @Value("${posts.card-cache.max-size:10000}") long maxSize) {
+        this.templateEngine = templateEngine;
+        this.imageVariants = imageVariants;
+        this.webApplication = JakartaServletWebApplication.buildApplication(servletContext);
+        this.cards = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    public String render(PostSummary post) {
+        String imageSrc = imageVariants.src(post.imagePath(), "thumb");
+        CardKey key = new CardKey(post.id(), post.version(), post.likesCount(), post.commentsCount(), imageSrc);
+        return cards.get(key, k -> renderCard(post, imageSrc));
+    }
+
+    public long size() {
+        return cards.estimatedSize();
+    }
+
+    private String renderCard(PostSummary post, String imageSrc) {
+        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.currentRequestAttributes();
+        // Карточка общая для всех пользователей - ссылки не должны содержать чужой jsessionid
+        HttpServletResponse response = new HttpServletResponseWrapper(attributes.getResponse()) {
+            @Override
+            public String encodeURL(String url) {
+                return url;
+            }
+        };
+
+        WebContext context = new WebContext(webApplication.buildExchange(attributes.getRequest(), response));
+        context.setVariable("post", post);
+        context.setVariable("imageSrc", imageSrc);
+        context.setVariable("imageSrcset", imageVariants.srcset(post.imagePath()));
+        return templateEngine.process("post-card", Set.of("card"), context);
+    }
+
+    private record CardKey(long id, long version, int likesCount, int commentsCount, String imageSrc) {
+    }
+}
@@ -0,0 +1,29 @@
+package com.jonyshev.myblog.controller;
+
+import com.jonyshev.myblog.service.SearchService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+@Controller
+public class SearchController {
+    private final SearchService searchService;
+
+    @Autowired
+    public SearchController(SearchService searchService) {
+        this.searchService = searchService;
+    }
+
+    @GetMapping("/search")
+    public String search(
+            @RequestParam(required = false, defaultValue = "") String q,
+            @RequestParam(required = false, defaultValue = "10") int pageSize,
+            @RequestParam(required = false, defaultValue = "1") int pageNumber,
+            Model model) {
+        model.addAttribute("q", q);
+        model.addAttribute("result", searchService.search(q, pageSize, pageNumber));
+        return "search";
+    }
+}
@@ -0,0 +1,6 @@
+package com.jonyshev.myblog.model;
+
+import java.util.List;
+
+public record CommentPage(List<Comment> comments, boolean hasNext) {
+}
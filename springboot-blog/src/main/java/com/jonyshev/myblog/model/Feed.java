@@ -0,0 +1,7 @@
+package com.jonyshev.myblog.model;
+
+/**
+ * @param totalCount число постов по фильтру; null, если его не запрашивали
+ */
+public record Feed(PostSlice slice, Integer totalCount) {
+}
@@ -1,3 +1,13 @@
 package com.jonyshev.myblog.model;
 
-public record Paging(int pageNumber, int pageSize, boolean hasNext, boolean hasPrevious) {}
\ No newline at end of file
+public record Paging(int pageNumber, int pageSize, boolean hasNext, boolean hasPrevious,
+                     String nextCursor, String previousCursor, Integer totalCount) {
+
+    public static final int MAX_PAGE_SIZE = 100;
+    // Номер страницы без курсора читается через OFFSET и стоит O(N) строк, поэтому так открываются только первые страницы
+    public static final int MAX_OFFSET_PAGE = 10;
+
+    public static int normalizePageSize(int pageSize) {
+        return Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+    }
+}
@@ -11,7 +11,7 @@ import java.util.List;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class Post {
     private Long id;
     private String title;
@@ -19,6 +19,8 @@ public class Post {
     private String imagePath;
     private List<String> tags;
     private int likesCount;
+    private long version;
+    private int commentsCount;
     private List<Comment> comments;
 
     public List<String> getTextParts() {
@@ -27,16 +29,7 @@ public class Post {
     }
 
     public String getTextPreview() {
-        if (text == null) return "";
-        String[] lines = text.split("\n");
-
-        StringBuilder preview = new StringBuilder();
-        for (int i = 0; i < Math.min(lines.length, 3); i++) {
-            preview.append(lines[i]).append(" ");
-        }
-
-        String result = preview.toString().trim();
-        return result.length() > 300 ? result.substring(0, 300) + "..." : result;
+        return PostSummary.preview(text);
     }
 
     public String getTagsAsText() {
@@ -0,0 +1,43 @@
+package com.jonyshev.myblog.model;
+
+import java.util.List;
+
+/**
+ * Пост в ленте: без полного текста и комментариев, только то, что показывает карточка.
+ */
+public record PostSummary(long id, String title, String imagePath, List<String> tags, String textPreview,
+                          int likesCount, int commentsCount, long version) {
+
+    public static final int PREVIEW_LENGTH = 300;
+
+    /**
+     * Сколько символов текста читать из базы для превью: три строки по {@link #PREVIEW_LENGTH}
+     * плюс переводы строк и отступы.
+     */
+    public static final int PREVIEW_SOURCE_LENGTH = 512;
+
+    public PostSummary {
+        tags = tags != null ? List.copyOf(tags) : List.of();
+    }
+
+    public PostSummary withLikesCount(int likesCount) {
+        return new PostSummary(id, title, imagePath, tags, textPreview, likesCount, commentsCount, version);
+    }
+
+    public static String preview(String text) {
+        if (text == null) return "";
+
+        // Нужны только первые три строки - не разбиваем весь текст
+        StringBuilder preview = new StringBuilder();
+        int start = 0;
+        for (int i = 0; i < 3 && start <= text.length(); i++) {
+            int end = text.indexOf('\n', start);
+            if (end < 0) end = text.length();
+            preview.append(text, start, end).append(" ");
+            start = end + 1;
+        }
+
+        String result = preview.toString().trim();
+        return result.length() > PREVIEW_LENGTH ? result.substring(0, PREVIEW_LENGTH) + "..." : result;
+    }
+}
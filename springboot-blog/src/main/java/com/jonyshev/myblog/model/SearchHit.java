@@ -0,0 +1,7 @@
+package com.jonyshev.myblog.model;
+
+/**
+ * @param snippet фрагмент текста с подсветкой совпадений, готовый HTML (текст уже экранирован)
+ */
+public record SearchHit(Long postId, String title, String snippet) {
+}
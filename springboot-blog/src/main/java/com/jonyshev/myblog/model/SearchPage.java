@@ -0,0 +1,10 @@
+package com.jonyshev.myblog.model;
+
+import java.util.List;
+
+public record SearchPage(List<SearchHit> hits, int pageNumber, int pageSize, boolean hasNext) {
+
+    public boolean hasPrevious() {
+        return pageNumber > 1;
+    }
+}
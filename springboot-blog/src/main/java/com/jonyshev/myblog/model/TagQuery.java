@@ -0,0 +1,54 @@
+package com.jonyshev.myblog.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Поиск по тегам: слова через пробел должны совпасть все (AND),
+ * варианты через "|" — хотя бы один (OR), "*" в конце слова — поиск по префиксу.
+ * Например: "java spring|kotlin doc*".
+ */
+public record TagQuery(List<List<Term>> clauses) {
+
+    public record Term(String tag, boolean prefix) {
+    }
+
+    public static TagQuery parse(String search) {
+        List<List<Term>> clauses = new ArrayList<>();
+        if (search == null || search.isBlank()) {
+            return new TagQuery(clauses);
+        }
+
+        for (String clause : search.trim().split("\\s+")) {
+            List<Term> terms = new ArrayList<>();
+            for (String alternative : clause.split("\\|")) {
+                Term term = parseTerm(alternative);
+                if (term != null) {
+                    terms.add(term);
+                }
+            }
+            if (!terms.isEmpty()) {
+                clauses.add(List.copyOf(terms));
+            }
+        }
+        return new TagQuery(List.copyOf(clauses));
+    }
+
+    public static String normalize(String tag) {
+        return tag.toLowerCase(Locale.ROOT);
+    }
+
+    public boolean isEmpty() {
+        return clauses.isEmpty();
+    }
+
+    private static Term parseTerm(String value) {
+        String tag = value.startsWith("#") ? value.substring(1) : value;
+        boolean prefix = tag.endsWith("*");
+        if (prefix) {
+            tag = tag.substring(0, tag.length() - 1);
+        }
+        return tag.isBlank() ? null : new Term(normalize(tag), prefix);
+    }
+}
@@ -3,14 +3,22 @@ package com.jonyshev.myblog.repository;
 import com.jonyshev.myblog.model.Comment;
 
 import java.util.List;
+import java.util.function.ObjLongConsumer;
 
 public interface CommentRepository {
     List<Comment> findByPostId(Long postId);
 
+    /**
+     * Страница комментариев поста по курсору: afterId - id последнего комментария предыдущей страницы.
+     */
+    List<Comment> findPage(Long postId, Long afterId, boolean newestFirst, int limit);
+
     void save(Long postId, Comment comment);
 
     void update(Long postId, Comment comment);
 
     void delete(Long postId, Long commentId);
 
+    void forEachComment(ObjLongConsumer<Comment> consumer);
+
 }
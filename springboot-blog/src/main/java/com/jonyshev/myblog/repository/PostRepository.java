@@ -1,12 +1,22 @@
 package com.jonyshev.myblog.repository;
 
 import com.jonyshev.myblog.model.Post;
+import com.jonyshev.myblog.model.PostSummary;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
 
 public interface PostRepository {
-    List<Post> findAll(String search, int pageSize, int pageNumber);
+    List<PostSummary> findSlice(String search, long offset, int limit);
+
+    List<PostSummary> findPage(String search, Long afterId, Long beforeId, int limit);
+
+    List<PostSummary> findSummariesByIds(long[] ids);
+
+    List<Post> findByIds(long[] ids);
 
     Optional<Post> findById(Long id);
 
@@ -14,9 +24,19 @@ public interface PostRepository {
 
     void update(Post post);
 
-    void deleteById(Long id);
+    /**
+     * @return число удалённых строк: 0, если пост уже удалён
+     */
+    int deleteById(Long id);
 
-    void like(Long id, boolean increase);
+    void applyLikeDeltas(Map<Long, Long> deltas);
 
     int countPosts(String search);
+
+    void forEachPostTags(ObjLongConsumer<List<String>> consumer);
+
+    /**
+     * Потоково отдаёт все посты; заполнены только id, title и text.
+     */
+    void forEachPostText(Consumer<Post> consumer);
 }
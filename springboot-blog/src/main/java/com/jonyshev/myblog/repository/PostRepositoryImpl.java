@@ -1,62 +1,140 @@
 package com.jonyshev.myblog.repository;
 
 import com.jonyshev.myblog.model.Post;
+import com.jonyshev.myblog.model.PostSummary;
+import com.jonyshev.myblog.model.TagQuery;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.PreparedStatement;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
 
 @Repository
 public class PostRepositoryImpl implements PostRepository {
 
     private final JdbcTemplate jdbcTemplate;
+    private final String selectPosts;
+    private final String selectSummaries;
 
     @Autowired
     public PostRepositoryImpl(JdbcTemplate jdbcTemplate) {
         this.jdbcTemplate = jdbcTemplate;
+        this.selectPosts = "SELECT id, title, text, image_path, tags, version, comments_count, likes_count FROM posts ";
+        // Для ленты полный текст не нужен: превью строится из начала текста, комментарии не читаются
+        this.selectSummaries = "SELECT id, title, image_path, tags, version, comments_count, " +
+                "SUBSTRING(text, 1, " + PostSummary.PREVIEW_SOURCE_LENGTH + ") AS text_head, " +
+                "likes_count FROM posts ";
     }
 
-    private final RowMapper<Post> postRowMapper = (rs, rowNum) -> Post.builder()
+    final RowMapper<Post> postRowMapper = (rs, rowNum) -> Post.builder()
             .id(rs.getLong("id"))
             .title(rs.getString("title"))
             .text(rs.getString("text"))
             .imagePath(rs.getString("image_path"))
             .tags(splitTags(rs.getString("tags")))
             .likesCount(rs.getInt("likes_count"))
+            .version(rs.getLong("version"))
+            .commentsCount(rs.getInt("comments_count"))
             .build();
 
+    final RowMapper<PostSummary> summaryRowMapper = (rs, rowNum) -> new PostSummary(
+            rs.getLong("id"),
+            rs.getString("title"),
+            rs.getString("image_path"),
+            splitTags(rs.getString("tags")),
+            PostSummary.preview(rs.getString("text_head")),
+            rs.getInt("likes_count"),
+            rs.getInt("comments_count"),
+            rs.getLong("version"));
+
 
     @Override
-    public List<Post> findAll(String search, int pageSize, int pageNumber) {
-        boolean hasSearch = search != null && !search.isBlank();
+    public List<PostSummary> findSlice(String search, long offset, int limit) {
+        List<Object> params = new ArrayList<>();
+        String condition = tagCondition(TagQuery.parse(search), params);
 
-        String sql = "SELECT * FROM posts " +
-                (hasSearch ? "WHERE LOWER(tags) LIKE ? " : "") +
+        String sql = selectSummaries +
+                (condition != null ? "WHERE " + condition + " " : "") +
                 "ORDER BY id DESC LIMIT ? OFFSET ?";
 
-        int offset = (pageNumber - 1) * pageSize;
+        params.add(limit);
+        params.add(offset);
+        return jdbcTemplate.query(sql, summaryRowMapper, params.toArray());
+    }
+
+    @Override
+    public List<PostSummary> findPage(String search, Long afterId, Long beforeId, int limit) {
+        List<String> conditions = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+
+        String tagCondition = tagCondition(TagQuery.parse(search), params);
+        if (tagCondition != null) {
+            conditions.add(tagCondition);
+        }
+        if (afterId != null) {
+            conditions.add("id < ?");
+            params.add(afterId);
+        }
+        if (beforeId != null) {
+            conditions.add("id > ?");
+            params.add(beforeId);
+        }
+        params.add(limit);
 
-        return hasSearch
-                ? jdbcTemplate.query(sql, postRowMapper, "%" + search.toLowerCase() + "%", pageSize, offset)
-                : jdbcTemplate.query(sql, postRowMapper, pageSize, offset);
+        // При движении назад берём ближайшие к курсору строки и разворачиваем их в порядок ленты
+        boolean backwards = beforeId != null && afterId == null;
+        String sql = selectSummaries +
+                (conditions.isEmpty() ? "" : "WHERE " + String.join(" AND ", conditions) + " ") +
+                "ORDER BY id " + (backwards ? "ASC" : "DESC") + " LIMIT ?";
+
+        List<PostSummary> posts = jdbcTemplate.query(sql, summaryRowMapper, params.toArray());
+        if (backwards) {
+            Collections.reverse(posts);
+        }
+        return posts;
+    }
+
+    @Override
+    public List<PostSummary> findSummariesByIds(long[] ids) {
+        if (ids.length == 0) {
+            return new ArrayList<>();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(ids.length, "?"));
+        String sql = selectSummaries + "WHERE id IN (" + placeholders + ") ORDER BY id DESC";
+        return jdbcTemplate.query(sql, summaryRowMapper, Arrays.stream(ids).boxed().toArray());
+    }
+
+    @Override
+    public List<Post> findByIds(long[] ids) {
+        if (ids.length == 0) {
+            return new ArrayList<>();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(ids.length, "?"));
+        String sql = selectPosts + "WHERE id IN (" + placeholders + ") ORDER BY id DESC";
+        return jdbcTemplate.query(sql, postRowMapper, Arrays.stream(ids).boxed().toArray());
     }
 
     @Override
     public Optional<Post> findById(Long id) {
-        String sql = "SELECT * FROM posts WHERE id = ?";
+        String sql = selectPosts + "WHERE id = ?";
         return jdbcTemplate.query(sql, postRowMapper, id).stream().findFirst();
     }
 
     @Override
+    @Transactional
     public Post save(Post post) {
         String sql = "INSERT INTO posts (title, text, image_path, tags, likes_count) VALUES (?,?,?,?,?)";
 
@@ -78,46 +156,119 @@ public class PostRepositoryImpl implements PostRepository {
         } else {
             throw new IllegalStateException("Не удалось получить ID нового поста из базы");
         }
+        saveTags(post.getId(), post.getTags());
 
         return post;
     }
 
     @Override
+    @Transactional
     public void update(Post post) {
-        String sql = "UPDATE posts SET title = ?, text = ?, image_path = ?, tags = ?, likes_count = ? WHERE ID = ?";
+        // likes_count пишет только сброс LikeBuffer через applyLikeDeltas, иначе правка поста затрёт уже сброшенные лайки
+        String sql = "UPDATE posts SET title = ?, text = ?, image_path = ?, tags = ?, version = version + 1 WHERE ID = ?";
         jdbcTemplate.update(sql,
                 post.getTitle(),
                 post.getText(),
                 post.getImagePath(),
                 String.join(" ", post.getTags()),
-                post.getLikesCount(),
                 post.getId()
         );
+        jdbcTemplate.update("DELETE FROM post_tags WHERE post_id = ?", post.getId());
+        saveTags(post.getId(), post.getTags());
     }
 
     @Override
-    public void deleteById(Long id) {
-        jdbcTemplate.update("DELETE FROM posts WHERE id = ?", id);
+    public int deleteById(Long id) {
+        return jdbcTemplate.update("DELETE FROM posts WHERE id = ?", id);
     }
 
     @Override
-    public void like(Long id, boolean increase) {
-        String sql = "UPDATE posts SET likes_count = likes_count " + (increase ? "+ 1" : "- 1") + " WHERE id = ?";
-        jdbcTemplate.update(sql, id);
+    public void applyLikeDeltas(Map<Long, Long> deltas) {
+        List<Object[]> batchArgs = deltas.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(entry -> new Object[]{entry.getValue(), entry.getKey()})
+                .toList();
+        jdbcTemplate.batchUpdate("UPDATE posts SET likes_count = GREATEST(likes_count + ?, 0) WHERE id = ?", batchArgs);
     }
 
     @Override
     public int countPosts(String search) {
-        boolean hasSearch = search != null && !search.isBlank();
+        List<Object> params = new ArrayList<>();
+        String condition = tagCondition(TagQuery.parse(search), params);
 
-        String sql = "SELECT COUNT(*) FROM posts " + (hasSearch ? "WHERE LOWER(tags) LIKE ?" : "");
+        String sql = "SELECT COUNT(*) FROM posts " + (condition != null ? "WHERE " + condition : "");
+        return jdbcTemplate.queryForObject(sql, Integer.class, params.toArray());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachPostTags(ObjLongConsumer<List<String>> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement("SELECT id, tags FROM posts");
+            ps.setFetchSize(1000);
+            return ps;
+        }, rs -> {
+            consumer.accept(splitTags(rs.getString("tags")), rs.getLong("id"));
+        });
+    }
+
+    @Override
+    public void forEachPostText(Consumer<Post> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement("SELECT id, title, text FROM posts");
+            ps.setFetchSize(1000);
+            return ps;
+        }, rs -> {
+            consumer.accept(Post.builder()
+                    .id(rs.getLong("id"))
+                    .title(rs.getString("title"))
+                    .text(rs.getString("text"))
+                    .build());
+        });
+    }
+
+    private void saveTags(Long postId, List<String> tags) {
+        List<Object[]> rows = tags.stream()
+                .map(TagQuery::normalize)
+                .distinct()
+                .map(tag -> new Object[]{postId, tag})
+                .toList();
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO post_tags (post_id, tag) VALUES (?, ?)", rows);
+        }
+    }
+
+    private String tagCondition(TagQuery query, List<Object> params) {
+        if (query.isEmpty()) {
+            return null;
+        }
+
+        List<String> clauses = new ArrayList<>();
+        for (List<TagQuery.Term> terms : query.clauses()) {
+            List<String> exact = new ArrayList<>();
+            List<String> alternatives = new ArrayList<>();
+            for (TagQuery.Term term : terms) {
+                if (term.prefix()) {
+                    alternatives.add("tag LIKE ? ESCAPE '\\'");
+                    params.add(escapeLike(term.tag()) + "%");
+                } else {
+                    exact.add("?");
+                    params.add(term.tag());
+                }
+            }
+            if (!exact.isEmpty()) {
+                alternatives.add(0, "tag IN (" + String.join(", ", exact) + ")");
+            }
+            clauses.add("id IN (SELECT post_id FROM post_tags WHERE " + String.join(" OR ", alternatives) + ")");
+        }
+        return String.join(" AND ", clauses);
+    }
 
-        return hasSearch
-                ? jdbcTemplate.queryForObject(sql, Integer.class, "%" + search.toLowerCase() + "%")
-                : jdbcTemplate.queryForObject(sql, Integer.class);
+    private String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
     }
 
-    private List<String> splitTags(String tags) {
+    static List<String> splitTags(String tags) {
         if (tags == null || tags.isBlank()) {
             return List.of();
         }
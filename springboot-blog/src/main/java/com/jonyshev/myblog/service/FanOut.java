@@ -0,0 +1,118 @@
+package com.jonyshev.myblog.service;
+
+import com.jonyshev.myblog.config.QueryStats;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * Параллельный запуск независимых запросов на виртуальных потоках в рамках одного HTTP-запроса.
+ * Работает как StructuredTaskScope.ShutdownOnFailure (в Java 21 это preview API): у задач общий дедлайн,
+ * при первой ошибке или по таймауту остальные задачи прерываются, из scope не утекает ни одна задача.
+ */
+@Component
+public class FanOut implements DisposableBean {
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("fan-out-", 0).factory());
+    private final long timeoutNanos;
+
+    @Autowired
+    public FanOut(@Value("${queries.fan-out-timeout-ms:2000}") long timeoutMs) {
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+    }
+
+    public <A, B, R> R join(Callable<A> first, Callable<B> second, BiFunction<A, B, R> combiner) {
+        try (Scope scope = open()) {
+            Future<A> a = scope.fork(first);
+            Future<B> b = scope.fork(second);
+            scope.join();
+            return combiner.apply(a.resultNow(), b.resultNow());
+        }
+    }
+
+    public Scope open() {
+        return new Scope(System.nanoTime() + timeoutNanos);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    public final class Scope implements AutoCloseable {
+
+        private final long deadline;
+        private final List<Future<?>> tasks = new ArrayList<>();
+        private final BlockingQueue<Future<?>> completed = new LinkedBlockingQueue<>();
+
+        private Scope(long deadline) {
+            this.deadline = deadline;
+        }
+
+        public <T> Future<T> fork(Callable<T> task) {
+            // Запросы из задачи учитываются в счётчиках SQL того же HTTP-запроса
+            FutureTask<T> future = new FutureTask<>(QueryStats.propagate(task)) {
+                @Override
+                protected void done() {
+                    completed.add(this);
+                }
+            };
+            tasks.add(future);
+            executor.execute(future);
+            return future;
+        }
+
+        /**
+         * Ждёт все задачи. Ошибка задачи пробрасывается как есть (checked - в обёртке),
+         * по истечении дедлайна - {@link QueryTimeoutException}.
+         */
+        public void join() {
+            try {
+                for (int i = 0; i < tasks.size(); i++) {
+                    Future<?> done = completed.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (done == null) {
+                        throw new QueryTimeoutException("Запросы не уложились в "
+                                + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " мс");
+                    }
+                    if (done.state() == Future.State.FAILED) {
+                        Throwable failure = done.exceptionNow();
+                        if (failure instanceof RuntimeException runtimeException) {
+                            throw runtimeException;
+                        }
+                        if (failure instanceof Error error) {
+                            throw error;
+                        }
+                        throw new IllegalStateException(failure);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Ожидание запросов прервано", e);
+            } finally {
+                close();
+            }
+        }
+
+        @Override
+        public void close() {
+            for (Future<?> task : tasks) {
+                task.cancel(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.jonyshev.myblog.service;
+
+import com.jonyshev.myblog.config.ImageUploadEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * Сохранение загруженных картинок за один проход по потоку: тип определяется по сигнатуре файла, а не по
+ * заголовку клиента, размер ограничивается по мере чтения, SHA-256 считается на лету и становится именем файла.
+ * Файл пишется во временный в том же каталоге и атомарно переименовывается - недописанная картинка не видна.
+ */
+@Component
+public class ImageStorage {
+
+    private static final int HEADER_BYTES = 12;
+    private static final int BUFFER_BYTES = 64 * 1024;
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+    private static final byte[] GIF87 = "GIF87a".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] GIF89 = "GIF89a".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] RIFF = "RIFF".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] WEBP = "WEBP".getBytes(StandardCharsets.US_ASCII);
+
+    private final Path uploadDir;
+    private final long maxBytes;
+
+    @Autowired
+    public ImageStorage(@Value("${images.max-bytes:5242880}") long maxBytes) {
+        this(Paths.get(System.getProperty("user.dir"), "uploads"), maxBytes);
+    }
+
+    ImageStorage(Path uploadDir, long maxBytes) {
+        this.uploadDir = uploadDir;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return имя сохранённого файла в каталоге uploads
+     */
+    public String store(InputStream in) throws IOException {
+        byte[] header = in.readNBytes(HEADER_BYTES);
+        String extension = extension(header);
+        if (extension == null) {
+            throw new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "Поддерживаются картинки PNG, JPEG, GIF и WebP");
+        }
+
+        ImageUploadEvent event = new ImageUploadEvent();
+        event.begin();
+        MessageDigest digest = sha256();
+        Files.createDirectories(uploadDir);
+        Path temp = Files.createTempFile(uploadDir, ".upload-", ".tmp");
+        try {
+            long size = 0;
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                byte[] buffer = Arrays.copyOf(header, Math.max(BUFFER_BYTES, header.length));
+                int read = header.length;
+                while (read != -1) {
+                    size += read;
+                    if (size > maxBytes) {
+                        throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "Картинка больше " + maxBytes + " байт");
+                    }
+                    digest.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                    read = in.read(buffer);
+                }
+            }
+
+            String imageName = HexFormat.of().formatHex(digest.digest()) + "." + extension;
+            Path target = uploadDir.resolve(imageName);
+            // Одинаковое содержимое даёт то же имя: повторную загрузку не пишем, дата изменения и ETag не меняются
+            if (!Files.exists(target)) {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+            event.fileName = imageName;
+            event.bytes = size;
+            event.commit();
+            return imageName;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    static String extension(byte[] header) {
+        if (startsWith(header, PNG)) {
+            return "png";
+        }
+        if (startsWith(header, JPEG)) {
+            return "jpg";
+        }
+        if (startsWith(header, GIF87) || startsWith(header, GIF89)) {
+            return "gif";
+        }
+        if (startsWith(header, RIFF) && header.length >= 12 && Arrays.equals(header, 8, 12, WEBP, 0, 4)) {
+            return "webp";
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] header, byte[] signature) {
+        return header.length >= signature.length && Arrays.equals(header, 0, signature.length, signature, 0, signature.length);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.jonyshev.myblog.service;
+
+import com.jonyshev.myblog.model.TagQuery;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+
+/**
+ * Кэш числа постов для ленты. Общее число ведётся инкрементально, числа по фильтрам
+ * сбрасываются при любом изменении постов.
+ */
+@Component
+public class PostCounter {
+
+    private static final long UNKNOWN = -1;
+    private static final int MAX_CACHED_QUERIES = 1000;
+
+    private final AtomicLong total = new AtomicLong(UNKNOWN);
+    private final AtomicLong version = new AtomicLong();
+    private final ConcurrentHashMap<TagQuery, Count> filtered = new ConcurrentHashMap<>();
+
+    public long count(TagQuery query, ToLongFunction<TagQuery> loader) {
+        long loadedVersion = version.get();
+        if (query.isEmpty()) {
+            long cached = total.get();
+            if (cached != UNKNOWN) {
+                return cached;
+            }
+            long count = loader.applyAsLong(query);
+            // Если посты менялись во время подсчёта, результат мог устареть - не запоминаем его
+            if (version.get() == loadedVersion) {
+                total.compareAndSet(UNKNOWN, count);
+            }
+            return count;
+        }
+
+        Count cached = filtered.get(query);
+        if (cached != null && cached.version() == loadedVersion) {
+            return cached.count();
+        }
+        long count = loader.applyAsLong(query);
+        if (version.get() == loadedVersion) {
+            if (filtered.size() >= MAX_CACHED_QUERIES) {
+                filtered.clear();
+            }
+            filtered.put(query, new Count(loadedVersion, count));
+        }
+        return count;
+    }
+
+    /**
+     * Есть ли для запроса актуальное число в кэше, то есть вернёт ли {@link #count} его без загрузки.
+     */
+    public boolean isCached(TagQuery query) {
+        if (query.isEmpty()) {
+            return total.get() != UNKNOWN;
+        }
+        Count cached = filtered.get(query);
+        return cached != null && cached.version() == version.get();
+    }
+
+    /**
+     * Вызывается до записи в базу, чтобы подсчёт, идущий параллельно с записью, не попал в кэш.
+     */
+    public void beforeChange() {
+        version.incrementAndGet();
+    }
+
+    public void afterChange(long totalDelta) {
+        version.incrementAndGet();
+        if (totalDelta != 0) {
+            total.getAndUpdate(count -> count == UNKNOWN ? UNKNOWN : Math.max(0, count + totalDelta));
+        }
+    }
+
+    private record Count(long version, long count) {
+    }
+}
@@ -1,19 +1,45 @@
 package com.jonyshev.myblog.service;
 
+import com.jonyshev.myblog.model.CommentPage;
+import com.jonyshev.myblog.model.Feed;
 import com.jonyshev.myblog.model.Post;
-import org.springframework.web.multipart.MultipartFile;
+import com.jonyshev.myblog.model.PostSlice;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Optional;
 
 public interface PostService {
-    List<Post> getAllPosts(String search, int pageSize, int pageNumber);
+    PostSlice getAllPosts(String search, int pageSize, int pageNumber);
+
+    PostSlice getPostsPage(String search, Long afterId, Long beforeId, int pageSize);
+
+    /**
+     * Страница ленты (по курсору или, без курсора и для pageNumber > 1, по номеру) и, если нужно,
+     * общее число постов. Запросы независимы и выполняются параллельно.
+     */
+    Feed getFeed(String search, Long afterId, Long beforeId, int pageSize, int pageNumber, boolean withTotal);
 
     Optional<Post> getPostById(Long id);
 
-    Long createPost(String title, String text, String tags, MultipartFile image);
+    CommentPage getComments(Long postId, Long afterId, boolean newestFirst, int pageSize);
+
+    /**
+     * Сохраняет картинку прямо из потока загрузки и ставит в очередь построение её уменьшенных копий.
+     *
+     * @return имя файла в каталоге uploads
+     */
+    String storeImage(InputStream in) throws IOException;
+
+    /**
+     * @param imageName имя файла из {@link #storeImage}, null - пост без картинки
+     */
+    Long createPost(String title, String text, String tags, String imageName);
 
-    void updatePost(Long id, String title, String text, String tags, MultipartFile image);
+    /**
+     * @param imageName имя файла из {@link #storeImage}, null - картинка поста не меняется
+     */
+    void updatePost(Long id, String title, String text, String tags, String imageName);
 
     void deletePost(Long id);
 
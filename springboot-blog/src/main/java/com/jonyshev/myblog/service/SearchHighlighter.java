@@ -0,0 +1,74 @@
+package com.jonyshev.myblog.service;
+
+import org.springframework.web.util.HtmlUtils;
+
+import java.util.Collection;
+import java.util.regex.Matcher;
+
+import static com.jonyshev.myblog.repository.FullTextSearchRepository.MARK_END;
+import static com.jonyshev.myblog.repository.FullTextSearchRepository.MARK_START;
+
+final class SearchHighlighter {
+
+    static final int WORDS_BEFORE = 10;
+    static final int SNIPPET_WORDS = 35;
+
+    private SearchHighlighter() {
+    }
+
+    /**
+     * Вырезает из текста окно вокруг первого найденного слова и обрамляет совпадения маркерами,
+     * как это делает ts_headline в PostgreSQL.
+     */
+    static String snippet(String text, Collection<String> terms) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        int firstMatch = -1;
+        Matcher matcher = FullTextIndex.wordPattern().matcher(text);
+        for (int word = 0; matcher.find(); word++) {
+            if (terms.contains(FullTextIndex.normalize(matcher.group()))) {
+                firstMatch = word;
+                break;
+            }
+        }
+        int from = Math.max(0, firstMatch - WORDS_BEFORE);
+
+        StringBuilder snippet = new StringBuilder();
+        matcher.reset();
+        int word = 0;
+        int end = -1;
+        boolean truncated = false;
+        while (matcher.find()) {
+            if (word == from + SNIPPET_WORDS) {
+                truncated = true;
+                break;
+            }
+            if (word++ < from) {
+                continue;
+            }
+            if (end >= 0) {
+                snippet.append(text, end, matcher.start());
+            }
+            if (terms.contains(FullTextIndex.normalize(matcher.group()))) {
+                snippet.append(MARK_START).append(matcher.group()).append(MARK_END);
+            } else {
+                snippet.append(matcher.group());
+            }
+            end = matcher.end();
+        }
+        return (from > 0 ? "… " : "") + snippet + (truncated ? " …" : "");
+    }
+
+    /**
+     * Экранирует HTML и превращает маркеры в &lt;mark&gt;.
+     */
+    static String toHtml(String marked) {
+        if (marked == null) {
+            return "";
+        }
+        return HtmlUtils.htmlEscape(marked, "UTF-8")
+                .replace(String.valueOf(MARK_START), "<mark>")
+                .replace(String.valueOf(MARK_END), "</mark>");
+    }
+}
@@ -0,0 +1,7 @@
+package com.jonyshev.myblog.service;
+
+import com.jonyshev.myblog.model.SearchPage;
+
+public interface SearchService {
+    SearchPage search(String query, int pageSize, int pageNumber);
+}
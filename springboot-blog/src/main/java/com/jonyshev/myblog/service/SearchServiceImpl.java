@@ -0,0 +1,68 @@
+package com.jonyshev.myblog.service;
+
+import com.jonyshev.myblog.model.Paging;
+import com.jonyshev.myblog.model.Post;
+import com.jonyshev.myblog.model.SearchHit;
+import com.jonyshev.myblog.model.SearchPage;
+import com.jonyshev.myblog.repository.FullTextSearchRepository;
+import com.jonyshev.myblog.repository.PostRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class SearchServiceImpl implements SearchService {
+
+    private final FullTextSearchRepository searchRepository;
+    private final FullTextIndex fullTextIndex;
+    private final PostRepository postRepository;
+
+    @Autowired
+    public SearchServiceImpl(FullTextSearchRepository searchRepository, FullTextIndex fullTextIndex,
+                             PostRepository postRepository) {
+        this.searchRepository = searchRepository;
+        this.fullTextIndex = fullTextIndex;
+        this.postRepository = postRepository;
+    }
+
+    @Override
+    public SearchPage search(String query, int pageSize, int pageNumber) {
+        int size = Paging.normalizePageSize(pageSize);
+        int page = Math.max(pageNumber, 1);
+        if (query == null || query.isBlank()) {
+            return new SearchPage(List.of(), page, size, false);
+        }
+        long offset = (long) (page - 1) * size;
+        List<SearchHit> rows = searchRepository.isSupported()
+                ? searchRepository.search(query, offset, size + 1).stream()
+                        .map(hit -> new SearchHit(hit.postId(), hit.title(), SearchHighlighter.toHtml(hit.snippet())))
+                        .toList()
+                : searchIndex(query, offset, size + 1);
+        boolean hasNext = rows.size() > size;
+        return new SearchPage(hasNext ? rows.subList(0, size) : rows, page, size, hasNext);
+    }
+
+    private List<SearchHit> searchIndex(String query, long offset, int limit) {
+        long[] ids = fullTextIndex.search(query, offset, limit);
+        if (ids.length == 0) {
+            return List.of();
+        }
+        Map<Long, Post> postsById = postRepository.findByIds(ids).stream()
+                .collect(Collectors.toMap(Post::getId, Function.identity()));
+        Set<String> terms = FullTextIndex.queryTerms(query, false);
+        // findByIds сортирует по id, возвращаем порядок релевантности
+        return Arrays.stream(ids)
+                .mapToObj(postsById::get)
+                .filter(Objects::nonNull)
+                .map(post -> new SearchHit(post.getId(), post.getTitle(),
+                        SearchHighlighter.toHtml(SearchHighlighter.snippet(post.getText(), terms))))
+                .toList();
+    }
+}
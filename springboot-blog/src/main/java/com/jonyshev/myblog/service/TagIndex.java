@@ -0,0 +1,197 @@
+package com.jonyshev.myblog.service;
+
+import com.jonyshev.myblog.model.TagQuery;
+import com.jonyshev.myblog.repository.PostRepository;
+import org.roaringbitmap.longlong.PeekableLongIterator;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Инвертированный индекс "тег -> id постов" в памяти. Фильтрация по тегам идёт по нему,
+ * из базы читается только итоговая страница постов.
+ */
+@Component
+public class TagIndex implements SmartInitializingSingleton {
+
+    private final PostRepository postRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private NavigableMap<String, Roaring64Bitmap> postIdsByTag = new TreeMap<>();
+    private volatile boolean ready;
+
+    @Autowired
+    public TagIndex(PostRepository postRepository) {
+        this.postRepository = postRepository;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            rebuild();
+        } catch (DataAccessException e) {
+            // Индекс остаётся выключенным, поиск по тегам идёт через базу
+            ready = false;
+        }
+    }
+
+    public void rebuild() {
+        NavigableMap<String, Roaring64Bitmap> index = new TreeMap<>();
+        postRepository.forEachPostTags((tags, postId) -> addAll(index, postId, tags));
+        index.values().forEach(Roaring64Bitmap::runOptimize);
+
+        lock.writeLock().lock();
+        try {
+            postIdsByTag = index;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void add(long postId, Collection<String> tags) {
+        lock.writeLock().lock();
+        try {
+            addAll(postIdsByTag, postId, tags);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long postId, Collection<String> tags) {
+        lock.writeLock().lock();
+        try {
+            removeAll(postId, tags);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void replace(long postId, Collection<String> oldTags, Collection<String> newTags) {
+        lock.writeLock().lock();
+        try {
+            removeAll(postId, oldTags);
+            addAll(postIdsByTag, postId, newTags);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public long count(TagQuery query) {
+        return match(query).getLongCardinality();
+    }
+
+    public long[] slice(TagQuery query, long offset, int limit) {
+        PeekableLongIterator iterator = match(query).getReverseLongIterator();
+        long skip = offset;
+        while (skip-- > 0 && iterator.hasNext()) {
+            iterator.next();
+        }
+        return take(iterator, limit);
+    }
+
+    public long[] page(TagQuery query, Long afterId, Long beforeId, int limit) {
+        if (afterId != null && afterId <= 0) {
+            return new long[0];
+        }
+        Roaring64Bitmap postIds = match(query);
+        if (beforeId != null && afterId == null) {
+            long[] ids = take(postIds.getLongIteratorFrom(beforeId + 1), limit);
+            reverse(ids);
+            return ids;
+        }
+        PeekableLongIterator iterator = afterId != null
+                ? postIds.getReverseLongIteratorFrom(afterId - 1)
+                : postIds.getReverseLongIterator();
+        if (beforeId != null) {
+            return Arrays.stream(take(iterator, limit)).filter(id -> id > beforeId).toArray();
+        }
+        return take(iterator, limit);
+    }
+
+    private Roaring64Bitmap match(TagQuery query) {
+        lock.readLock().lock();
+        try {
+            Roaring64Bitmap result = null;
+            for (List<TagQuery.Term> terms : query.clauses()) {
+                Roaring64Bitmap clause = new Roaring64Bitmap();
+                for (TagQuery.Term term : terms) {
+                    if (term.prefix()) {
+                        postIdsByTag.subMap(term.tag(), true, term.tag() + Character.MAX_VALUE, true)
+                                .values()
+                                .forEach(clause::or);
+                    } else {
+                        Roaring64Bitmap postIds = postIdsByTag.get(term.tag());
+                        if (postIds != null) {
+                            clause.or(postIds);
+                        }
+                    }
+                }
+                result = result == null ? clause : Roaring64Bitmap.and(result, clause);
+                if (result.isEmpty()) {
+                    break;
+                }
+            }
+            return result == null ? new Roaring64Bitmap() : result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void addAll(Map<String, Roaring64Bitmap> index, long postId, Collection<String> tags) {
+        if (tags == null) {
+            return;
+        }
+        for (String tag : tags) {
+            index.computeIfAbsent(TagQuery.normalize(tag), key -> new Roaring64Bitmap()).addLong(postId);
+        }
+    }
+
+    private void removeAll(long postId, Collection<String> tags) {
+        if (tags == null) {
+            return;
+        }
+        for (String tag : tags) {
+            String key = TagQuery.normalize(tag);
+            Roaring64Bitmap postIds = postIdsByTag.get(key);
+            if (postIds != null) {
+                postIds.removeLong(postId);
+                if (postIds.isEmpty()) {
+                    postIdsByTag.remove(key);
+                }
+            }
+        }
+    }
+
+    private static long[] take(PeekableLongIterator iterator, int limit) {
+        long[] ids = new long[limit];
+        int size = 0;
+        while (size < limit && iterator.hasNext()) {
+            ids[size++] = iterator.next();
+        }
+        return size == limit ? ids : Arrays.copyOf(ids, size);
+    }
+
+    private static void reverse(long[] ids) {
+        for (int i = 0, j = ids.length - 1; i < j; i++, j--) {
+            long tmp = ids[i];
+            ids[i] = ids[j];
+            ids[j] = tmp;
+        }
+    }
+}
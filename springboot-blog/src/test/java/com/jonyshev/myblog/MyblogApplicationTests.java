@@ -1,15 +1,36 @@
 package com.jonyshev.myblog;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
 @SpringBootTest
 @ActiveProfiles("test")
 class MyblogApplicationTests {
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Test
     void contextLoads() {
     }
 
+    @Test
+    void connectionPoolMetrics_shouldBeRegistered() {
+        assertNotNull(meterRegistry.find("hikaricp.connections.active").gauge());
+        assertNotNull(meterRegistry.find("hikaricp.connections.idle").gauge());
+        assertNotNull(meterRegistry.find("hikaricp.connections.pending").gauge());
+        assertNotNull(meterRegistry.find("hikaricp.connections.acquire").timer());
+    }
+
+    @Test
+    void postCacheMetrics_shouldBeRegistered() {
+        assertNotNull(meterRegistry.find("cache.gets").tag("cache", "posts").tag("result", "hit").functionCounter());
+        assertNotNull(meterRegistry.find("cache.evictions").tag("cache", "posts").functionCounter());
+    }
+
 }
@@ -0,0 +1,159 @@
+package com.jonyshev.myblog.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InstrumentedDataSourceTest {
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource h2 = new DriverManagerDataSource("jdbc:h2:mem:instrumented;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(new InstrumentedDataSource(h2));
+        jdbcTemplate.execute("CREATE TABLE items (id INT PRIMARY KEY, name VARCHAR(20))");
+        jdbcTemplate.batchUpdate("INSERT INTO items VALUES (?, ?)", List.of(
+                new Object[]{1, "a"}, new Object[]{2, "b"}, new Object[]{3, "c"}));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP TABLE items");
+    }
+
+    @Test
+    void shouldCountStatementsAndFetchedRows() {
+        //given
+        QueryStats stats = QueryStats.start();
+
+        //when
+        try {
+            jdbcTemplate.queryForList("SELECT name FROM items ORDER BY id", String.class);
+            jdbcTemplate.queryForObject("SELECT name FROM items WHERE id = ?", String.class, 2);
+            jdbcTemplate.update("UPDATE items SET name = ? WHERE id = ?", "z", 3);
+        } finally {
+            stats.end();
+        }
+
+        //then
+        assertEquals(3, stats.getStatements());
+        assertEquals(4, stats.getRows());
+        assertTrue(stats.getDbMillis() > 0);
+        assertEquals(List.of("SELECT name FROM items ORDER BY id", "SELECT name FROM items WHERE id = ?",
+                "UPDATE items SET name = ? WHERE id = ?"), stats.getSql());
+        assertTrue(stats.toServerTiming().matches("db;dur=\\d+\\.\\d;desc=\"3 queries, 4 rows\""));
+    }
+
+    @Test
+    void nestedScope_shouldAlsoCountInOuterScope() {
+        //given
+        QueryStats outer = QueryStats.start();
+        QueryStats inner;
+
+        //when
+        try {
+            jdbcTemplate.queryForList("SELECT id FROM items", Integer.class);
+            inner = QueryStats.start();
+            try {
+                jdbcTemplate.queryForList("SELECT id FROM items WHERE id > 1", Integer.class);
+            } finally {
+                inner.end();
+            }
+        } finally {
+            outer.end();
+        }
+
+        //then
+        assertEquals(1, inner.getStatements());
+        assertEquals(2, inner.getRows());
+        assertEquals(2, outer.getStatements());
+        assertEquals(5, outer.getRows());
+        assertNull(QueryStats.current());
+    }
+
+    @Test
+    void propagate_shouldCountQueriesFromOtherThread() throws Exception {
+        //given
+        QueryStats stats = QueryStats.start();
+
+        //when
+        try {
+            Callable<List<Integer>> task = QueryStats.propagate(
+                    () -> jdbcTemplate.queryForList("SELECT id FROM items", Integer.class));
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                executor.submit(task).get();
+            }
+        } finally {
+            stats.end();
+        }
+
+        //then
+        assertEquals(1, stats.getStatements());
+        assertEquals(3, stats.getRows());
+    }
+
+    @Test
+    void slowStatement_shouldBeRecordedWithParameters() {
+        //given
+        SlowQueryLog slowQueryLog = new SlowQueryLog(1, 10, 0) {
+            @Override
+            public boolean isSlow(long elapsedNanos) {
+                return true;
+            }
+        };
+        JdbcTemplate logged = new JdbcTemplate(new InstrumentedDataSource(jdbcTemplate.getDataSource(), slowQueryLog));
+
+        //when
+        logged.queryForList("SELECT name FROM items WHERE id > ?   AND name <> 'x'", String.class, 1);
+
+        //then
+        SlowQueryLog.Entry entry = slowQueryLog.recent().get(0);
+        assertEquals("SELECT name FROM items WHERE id > ? AND name <> ?", entry.sql());
+        assertEquals(List.of("1"), entry.params());
+        slowQueryLog.close();
+    }
+
+    @Test
+    void disabledSlowQueryLog_shouldRecordNothing() {
+        //given
+        SlowQueryLog slowQueryLog = new SlowQueryLog(0, 10, 0) {
+            @Override
+            public boolean isSlow(long elapsedNanos) {
+                return true;
+            }
+        };
+        JdbcTemplate logged = new JdbcTemplate(new InstrumentedDataSource(jdbcTemplate.getDataSource(), slowQueryLog));
+
+        //when
+        logged.queryForList("SELECT name FROM items WHERE id > ?", String.class, 1);
+
+        //then
+        assertTrue(slowQueryLog.recent().isEmpty());
+        slowQueryLog.close();
+    }
+
+    @Test
+    void queryBudget_shouldFailWhenExceeded() {
+        //when
+        AssertionError error = assertThrows(AssertionError.class, () -> QueryBudget.assertAtMost(1, () -> {
+            jdbcTemplate.queryForList("SELECT id FROM items", Integer.class);
+            jdbcTemplate.queryForList("SELECT name FROM items", String.class);
+        }));
+
+        //then
+        assertTrue(error.getMessage().contains("SELECT name FROM items"));
+    }
+}
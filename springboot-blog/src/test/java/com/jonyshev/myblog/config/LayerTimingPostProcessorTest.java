@@ -0,0 +1,82 @@
+package com.jonyshev.myblog.config;
+
+import com.jonyshev.myblog.controller.PostController;
+import com.jonyshev.myblog.repository.CommentRepository;
+import com.jonyshev.myblog.repository.CommentRepositoryImpl;
+import com.jonyshev.myblog.service.PostCache;
+import com.jonyshev.myblog.service.PostService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.ui.ExtendedModelMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LayerTimingPostProcessorTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LayerTimingPostProcessor postProcessor = new LayerTimingPostProcessor(beanFactory().getBeanProvider(MeterRegistry.class));
+
+    @Test
+    void controllerHandler_shouldBeTimedWithOutcome() {
+        //given
+        PostService postService = mock(PostService.class);
+        when(postService.getPostById(1L)).thenThrow(new IllegalArgumentException("Пост не найден"));
+        PostController controller = (PostController) postProcessor.postProcessAfterInitialization(
+                new PostController(postService, 6_291_456), "postController");
+
+        //when
+        controller.redirectToPosts();
+        assertThrows(IllegalArgumentException.class, () -> controller.getPostById(1L, false, new ExtendedModelMap()));
+
+        //then
+        assertEquals(1, timer("controller", "PostController.redirectToPosts", "success", "none").count());
+        assertEquals(1, timer("controller", "PostController.getPostById", "error", "IllegalArgumentException").count());
+    }
+
+    @Test
+    void repositoryMethod_shouldBeTimedUnderInterfaceName() {
+        //given
+        CommentRepository repository = (CommentRepository) postProcessor.postProcessAfterInitialization(
+                new CommentRepositoryImpl(mock(JdbcTemplate.class)), "commentRepositoryImpl");
+
+        //when
+        repository.findByPostId(1L);
+        repository.findByPostId(2L);
+
+        //then
+        assertEquals(2, timer("repository", "CommentRepository.findByPostId", "success", "none").count());
+    }
+
+    @Test
+    void otherBeans_shouldNotBeProxied() {
+        //when
+        Object bean = postProcessor.postProcessAfterInitialization(new PostCache(10, 60), "postCache");
+
+        //then
+        assertFalse(AopUtils.isAopProxy(bean));
+    }
+
+    private DefaultListableBeanFactory beanFactory() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("meterRegistry", meterRegistry);
+        return beanFactory;
+    }
+
+    private Timer timer(String layer, String operation, String outcome, String exception) {
+        Timer timer = meterRegistry.find(LayerTimingPostProcessor.METRIC)
+                .tags("layer", layer, "operation", operation, "outcome", outcome, "exception", exception)
+                .timer();
+        assertNotNull(timer, operation + " " + outcome);
+        return timer;
+    }
+}
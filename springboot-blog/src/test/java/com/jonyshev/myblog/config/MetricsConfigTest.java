@@ -0,0 +1,46 @@
+package com.jonyshev.myblog.config;
+
+import com.jonyshev.myblog.service.PostService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("test")
+class MetricsConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private PostService postService;
+
+    @Test
+    void prometheus_shouldExposeLayerAndHttpTimers() throws Exception {
+        //given
+        when(postService.getPostById(404L)).thenReturn(Optional.empty());
+        mockMvc.perform(get("/posts/404")).andExpect(status().is3xxRedirection());
+
+        //when //then
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("myblog_calls_seconds_count{exception=\"none\",layer=\"controller\",operation=\"PostController.getPostById\",outcome=\"success\"}")))
+                .andExpect(content().string(containsString("myblog_calls_seconds_bucket{exception=\"none\",layer=\"controller\",operation=\"PostController.getPostById\",outcome=\"success\",le=\"0.025\"}")))
+                .andExpect(content().string(containsString("uri=\"/posts/{id}\"")));
+    }
+}
@@ -0,0 +1,33 @@
+package com.jonyshev.myblog.config;
+
+import org.junit.jupiter.api.function.Executable;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Проверка бюджета запросов к БД в тестах: действие выполняется в своём {@link QueryStats},
+ * тест падает, если statement-ов больше заявленного. Нужен DataSource, обёрнутый в {@link InstrumentedDataSource}.
+ */
+public final class QueryBudget {
+
+    private QueryBudget() {
+    }
+
+    public static QueryStats assertAtMost(int maxStatements, Executable action) {
+        QueryStats stats = QueryStats.start();
+        try {
+            action.execute();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new AssertionError(e);
+        } finally {
+            stats.end();
+        }
+        if (stats.getStatements() > maxStatements) {
+            fail("Бюджет " + maxStatements + " запросов превышен: " + stats + "\n"
+                    + String.join("\n", stats.getSql()));
+        }
+        return stats;
+    }
+}
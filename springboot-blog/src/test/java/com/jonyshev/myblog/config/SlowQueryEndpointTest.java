@@ -0,0 +1,42 @@
+package com.jonyshev.myblog.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SlowQueryEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SlowQueryLog slowQueryLog;
+
+    @Test
+    void slowQueries_shouldReturnRecordedStatements() throws Exception {
+        //given
+        slowQueryLog.record("SELECT * FROM posts WHERE LOWER(tags) LIKE ?", Map.of(1, "%java%"),
+                TimeUnit.MILLISECONDS.toNanos(300), null);
+
+        //when //then
+        mockMvc.perform(get("/actuator/slowqueries"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].sql").value("SELECT * FROM posts WHERE LOWER(tags) LIKE ?"))
+                .andExpect(jsonPath("$[0].params[0]").value("%java%"))
+                .andExpect(jsonPath("$[*].millis", hasItem(300.0)));
+    }
+}
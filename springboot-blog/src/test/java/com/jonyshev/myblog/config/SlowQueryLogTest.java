@@ -0,0 +1,67 @@
+package com.jonyshev.myblog.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlowQueryLogTest {
+
+    private final SlowQueryLog slowQueryLog = new SlowQueryLog(100, 2, 0);
+
+    @AfterEach
+    void tearDown() {
+        slowQueryLog.close();
+    }
+
+    @Test
+    void isSlow_shouldCompareWithThreshold() {
+        assertFalse(slowQueryLog.isSlow(TimeUnit.MILLISECONDS.toNanos(99)));
+        assertTrue(slowQueryLog.isSlow(TimeUnit.MILLISECONDS.toNanos(100)));
+        SlowQueryLog disabled = new SlowQueryLog(0, 2, 0);
+        assertFalse(disabled.isSlow(Long.MAX_VALUE - 1));
+        assertFalse(disabled.isEnabled());
+        assertTrue(slowQueryLog.isEnabled());
+        disabled.close();
+    }
+
+    @Test
+    void normalize_shouldReplaceLiteralsAndCollapseWhitespace() {
+        assertEquals("SELECT id FROM posts WHERE LOWER(tags) LIKE ? AND likes_count > ? LIMIT ?",
+                SlowQueryLog.normalize("""
+                        SELECT id FROM posts
+                        WHERE LOWER(tags) LIKE '%it''s%'   AND likes_count > 10
+                        LIMIT 2.5"""));
+        assertEquals("SELECT t1.id FROM posts t1", SlowQueryLog.normalize("SELECT t1.id FROM posts t1"));
+    }
+
+    @Test
+    void record_shouldKeepLastEntriesNewestFirst() {
+        //given
+        Map<Integer, Object> params = new TreeMap<>();
+        params.put(1, "%java%");
+        params.put(3, 11);
+
+        //when
+        slowQueryLog.record("SELECT 1", Map.of(), TimeUnit.MILLISECONDS.toNanos(150), null);
+        slowQueryLog.record("SELECT 2", Map.of(), TimeUnit.MILLISECONDS.toNanos(200), null);
+        slowQueryLog.record("SELECT * FROM posts WHERE tags LIKE ? AND id > ? LIMIT ?", params,
+                TimeUnit.MILLISECONDS.toNanos(250), null);
+
+        //then
+        List<SlowQueryLog.Entry> recent = slowQueryLog.recent();
+        assertEquals(List.of(3L, 2L), recent.stream().map(SlowQueryLog.Entry::id).toList());
+        SlowQueryLog.Entry newest = recent.get(0);
+        assertEquals(List.of("%java%", "null", "11"), newest.params());
+        assertEquals(250.0, newest.millis());
+        assertNull(newest.plan());
+    }
+}
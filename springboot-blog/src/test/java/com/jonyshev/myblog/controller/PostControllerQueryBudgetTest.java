@@ -0,0 +1,101 @@
+package com.jonyshev.myblog.controller;
+
+import com.jonyshev.myblog.config.QueryStats;
+import com.jonyshev.myblog.model.Comment;
+import com.jonyshev.myblog.model.Post;
+import com.jonyshev.myblog.repository.CommentRepository;
+import com.jonyshev.myblog.repository.PostRepository;
+import com.jonyshev.myblog.service.PostCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static com.jonyshev.myblog.config.QueryBudget.assertAtMost;
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Бюджеты запросов к БД для основных страниц: рост числа запросов (N+1, лишний count) ломает тест.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PostControllerQueryBudgetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private PostCache postCache;
+
+    private Long postId;
+
+    @BeforeEach
+    void setUp() {
+        postCache.invalidateAll();
+        for (int i = 0; i < 15; i++) {
+            Post post = postRepository.save(Post.builder()
+                    .title("title" + i)
+                    .text("text " + i)
+                    .tags(List.of("java", "tag" + i))
+                    .build());
+            postId = post.getId();
+            commentRepository.save(postId, Comment.builder().text("comment " + i).build());
+        }
+    }
+
+    @Test
+    void getAllPosts_shouldRunSingleQuery() {
+        assertAtMost(1, () -> mockMvc.perform(get("/posts"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Server-Timing", matchesPattern("db;dur=[\\d.]+;desc=\"1 queries, 11 rows\""))));
+    }
+
+    @Test
+    void getAllPostsWithTotal_shouldCountQueriesOfParallelTasks() {
+        //when
+        QueryStats stats = assertAtMost(2, () -> mockMvc.perform(get("/posts").param("withTotal", "true"))
+                .andExpect(status().isOk()));
+
+        //then
+        // Страница и счётчик читаются в потоках FanOut; общее число постов может прийти из PostCounter
+        assertTrue(stats.getStatements() >= 1);
+        assertTrue(stats.getRows() >= 11);
+    }
+
+    @Test
+    void getPostById_shouldLoadPostAndCommentsOnly() {
+        //when
+        QueryStats first = assertAtMost(2, () -> mockMvc.perform(get("/posts/{id}", postId))
+                .andExpect(status().isOk()));
+        QueryStats cached = assertAtMost(1, () -> mockMvc.perform(get("/posts/{id}", postId))
+                .andExpect(status().isOk()));
+
+        //then
+        assertEquals(2, first.getStatements());
+        assertEquals(1, cached.getStatements());
+    }
+
+    @Test
+    void addComment_shouldStayWithinQueryBudget() {
+        assertAtMost(4, () -> mockMvc.perform(post("/posts/{id}/comments", postId).param("text", "new"))
+                .andExpect(status().is3xxRedirection()));
+    }
+}
@@ -1,6 +1,13 @@
 package com.jonyshev.myblog.controller;
 
+import com.jonyshev.myblog.model.Comment;
+import com.jonyshev.myblog.model.CommentPage;
+import com.jonyshev.myblog.model.Feed;
+import com.jonyshev.myblog.model.PageCursor;
+import com.jonyshev.myblog.model.Paging;
 import com.jonyshev.myblog.model.Post;
+import com.jonyshev.myblog.model.PostSlice;
+import com.jonyshev.myblog.model.PostSummary;
 import com.jonyshev.myblog.service.PostService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,9 +17,21 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 
+import static com.jonyshev.myblog.controller.PostFormRequest.postForm;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -32,12 +51,89 @@ class PostControllerTest {
 
     @Test
     void getAllPosts_shouldReturnPostsTemplate() throws Exception {
+        when(postService.getFeed("", null, null, 10, 1, false))
+                .thenReturn(new Feed(new PostSlice(List.of(), false, false), null));
+
         mockMvc.perform(get("/posts"))
                 .andExpect(status().isOk())
                 .andExpect(view().name("posts"))
                 .andExpect(model().attributeExists("posts", "search", "paging"));
     }
 
+    @Test
+    void getAllPosts_shouldSeekByCursorAndExposeNextCursors() throws Exception {
+        //given
+        List<PostSummary> posts = List.of(
+                new PostSummary(9L, "nine", null, List.of(), "", 0, 0, 0),
+                new PostSummary(8L, "eight", null, List.of(), "", 0, 0, 0));
+
+        when(postService.getFeed("", 10L, null, 2, 2, false)).thenReturn(new Feed(new PostSlice(posts, true, true), null));
+
+        //then
+        mockMvc.perform(get("/posts")
+                        .param("pageSize", "2")
+                        .param("pageNumber", "2")
+                        .param("after", PageCursor.encode(10L)))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("paging",
+                        new Paging(2, 2, true, true, PageCursor.encode(8L), PageCursor.encode(9L), null)));
+
+        verify(postService, never()).countPosts(anyString());
+    }
+
+    @Test
+    void getAllPosts_shouldUseExtraRowForOffsetPages_andCountOnlyOnRequest() throws Exception {
+        //given
+        List<PostSummary> posts = List.of(new PostSummary(5L, "five", null, List.of(), "", 0, 0, 0));
+
+        PostSlice slice = new PostSlice(posts, false, true);
+        when(postService.getFeed("", null, null, 10, 3, false)).thenReturn(new Feed(slice, null));
+        when(postService.getFeed("", null, null, 10, 3, true)).thenReturn(new Feed(slice, 21));
+
+        //then
+        mockMvc.perform(get("/posts").param("pageNumber", "3"))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("paging",
+                        new Paging(3, 10, false, true, null, PageCursor.encode(5L), null)));
+
+        mockMvc.perform(get("/posts").param("pageNumber", "3").param("withTotal", "true"))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("paging",
+                        new Paging(3, 10, false, true, null, PageCursor.encode(5L), 21)));
+    }
+
+    @Test
+    void getAllPosts_shouldRedirectDeepOffsetPagesToCursorFeed() throws Exception {
+        mockMvc.perform(get("/posts")
+                        .param("search", "#java")
+                        .param("pageSize", "20")
+                        .param("pageNumber", String.valueOf(Paging.MAX_OFFSET_PAGE + 1)))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(redirectedUrl("/posts?search=%23java&pageSize=20"));
+
+        verify(postService, never()).getFeed(anyString(), any(), any(), anyInt(), anyInt(), anyBoolean());
+    }
+
+    @Test
+    void getAllPosts_shouldLeadBackFromEmptyPagePastTheEnd() throws Exception {
+        //given
+        when(postService.getFeed("", 7L, null, 10, 3, false))
+                .thenReturn(new Feed(new PostSlice(List.of(), false, true), null));
+        when(postService.getFeed("", null, null, 10, 4, false))
+                .thenReturn(new Feed(new PostSlice(List.of(), false, true), null));
+
+        //then
+        mockMvc.perform(get("/posts").param("pageNumber", "3").param("after", PageCursor.encode(7L)))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("paging",
+                        new Paging(3, 10, false, true, null, PageCursor.encode(6L), null)));
+
+        mockMvc.perform(get("/posts").param("pageNumber", "4"))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("paging", new Paging(4, 10, false, true, null, null, null)))
+                .andExpect(content().string(containsString("pageNumber=3")));
+    }
+
     @Test
     void likePost_shouldRedirectAndCallService() throws Exception {
         Long postId = 1L;
@@ -61,6 +157,7 @@ class PostControllerTest {
 
         //when
         when(postService.getPostById(postId)).thenReturn(Optional.of(post));
+        when(postService.getComments(postId, null, false, 20)).thenReturn(new CommentPage(List.of(), false));
 
         //then
         mockMvc.perform(get("/posts/1"))
@@ -69,6 +166,42 @@ class PostControllerTest {
                 .andExpect(model().attribute("post", post));
     }
 
+    @Test
+    void getPostById_shouldRenderFirstCommentPageWithLoadMoreLink() throws Exception {
+        //given
+        Post post = Post.builder().id(1L).title("title").text("text").tags(List.of()).commentsCount(3).build();
+        List<Comment> comments = List.of(
+                Comment.builder().id(30L).text("newest").build(),
+                Comment.builder().id(20L).text("middle").build());
+
+        when(postService.getPostById(1L)).thenReturn(Optional.of(post));
+        when(postService.getComments(1L, null, true, 20)).thenReturn(new CommentPage(comments, true));
+
+        //then
+        mockMvc.perform(get("/posts/1").param("newestFirst", "true"))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("commentsCursor", PageCursor.encode(20L)))
+                .andExpect(content().string(containsString("newest")))
+                .andExpect(content().string(containsString("комментарии 3")))
+                .andExpect(content().string(containsString(
+                        "/posts/1/comments?after=" + PageCursor.encode(20L) + "&amp;newestFirst=true")));
+    }
+
+    @Test
+    void getComments_shouldRenderOnlyCommentRowsFragment() throws Exception {
+        //given
+        when(postService.getComments(1L, 20L, false, 20)).thenReturn(
+                new CommentPage(List.of(Comment.builder().id(21L).text("next").build()), false));
+
+        //then
+        mockMvc.perform(get("/posts/1/comments").param("after", PageCursor.encode(20L)))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("commentsCursor", (Object) null))
+                .andExpect(content().string(containsString("next")))
+                .andExpect(content().string(not(containsString("<html"))))
+                .andExpect(content().string(not(containsString("Показать ещё"))));
+    }
+
     @Test
     void getPostById_shouldRedirect_whenPostDoesNotExist() throws Exception {
         //given
@@ -81,4 +214,39 @@ class PostControllerTest {
                 .andExpect(status().is3xxRedirection())
                 .andExpect(redirectedUrl("/posts"));
     }
+    @Test
+    void createPost_shouldStreamImageFromRequestBodyIntoService() throws Exception {
+        //given
+        byte[] image = {(byte) 0x89, 'P', 'N', 'G'};
+        AtomicReference<byte[]> stored = new AtomicReference<>();
+        when(postService.storeImage(any())).thenAnswer(invocation -> {
+            stored.set(invocation.<InputStream>getArgument(0).readAllBytes());
+            return "abc.png";
+        });
+        when(postService.createPost("Заголовок", "text", "java", "abc.png")).thenReturn(7L);
+
+        //then
+        mockMvc.perform(postForm("/posts", Map.of("title", "Заголовок", "text", "text", "tags", "java"), "a.png", image))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(redirectedUrl("/posts/7"));
+        assertArrayEquals(image, stored.get());
+    }
+
+    @Test
+    void updatePost_shouldKeepImage_whenNoFileChosen() throws Exception {
+        //then
+        mockMvc.perform(postForm("/posts/3", Map.of("title", "title", "text", "text"), "", new byte[0]))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(redirectedUrl("/posts/3"));
+        verify(postService, never()).storeImage(any());
+        verify(postService).updatePost(3L, "title", "text", null, null);
+    }
+
+    @Test
+    void createPost_shouldRejectForm_whenTitleMissing() throws Exception {
+        //then
+        mockMvc.perform(postForm("/posts", Map.of("text", "text"), null, null))
+                .andExpect(status().isBadRequest());
+        verify(postService, never()).createPost(any(), any(), any(), any());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,45 @@
+package com.jonyshev.myblog.controller;
+
+import com.jonyshev.myblog.model.SearchHit;
+import com.jonyshev.myblog.model.SearchPage;
+import com.jonyshev.myblog.service.SearchService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SearchControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private SearchService searchService;
+
+    @Test
+    void search_shouldRenderHighlightedHitsAndNextPageLink() throws Exception {
+        //given
+        when(searchService.search("spring", 1, 1)).thenReturn(new SearchPage(
+                List.of(new SearchHit(7L, "Про <Spring>", "про <mark>Spring</mark>")), 1, 1, true));
+        //when //then
+        mockMvc.perform(get("/search").param("q", "spring").param("pageSize", "1"))
+                .andExpect(status().isOk())
+                .andExpect(view().name("search"))
+                .andExpect(content().string(containsString("Про &lt;Spring&gt;")))
+                .andExpect(content().string(containsString("про <mark>Spring</mark>")))
+                .andExpect(content().string(containsString("/search?q=spring&amp;pageSize=1&amp;pageNumber=2")));
+    }
+}
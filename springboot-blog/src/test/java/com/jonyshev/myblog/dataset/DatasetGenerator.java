@@ -0,0 +1,355 @@
+package com.jonyshev.myblog.dataset;
+
+import com.jonyshev.myblog.model.TagQuery;
+import com.zaxxer.hikari.HikariDataSource;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Наполняет posts, post_tags и comments синтетическими данными "как в продакшене":
+ * популярность тегов и слов - по Ципфу, длина текстов - логнормальная, число комментариев и лайков - с тяжёлым
+ * хвостом (Парето). Одинаковый seed даёт одинаковые данные. Вставка - батчами JDBC, на Postgres - через COPY.
+ * Запуск: ./gradlew dataset, параметры - -Ddataset.*, см. {@link Settings#fromSystemProperties()}.
+ */
+public class DatasetGenerator {
+
+    private static final String DEFAULT_URL = "jdbc:h2:file:./build/dataset/myblog";
+    private static final long PROGRESS_STEP = 100_000;
+    private static final int MAX_TEXT_LENGTH = 100_000;
+    private static final int WORDS = 20_000;
+    private static final String[] WORD_SYLLABLES = {
+            "ка", "ро", "ми", "да", "ле", "на", "то", "ве", "пра", "сти", "но", "за", "ре", "по", "ни", "ст",
+            "во", "ко", "ма", "ть", "ог", "ен", "ов", "ия", "ли", "се", "бы", "ра", "мо", "ской"
+    };
+    private static final String[] TAG_SYLLABLES = {
+            "ja", "va", "spr", "ing", "sq", "lo", "da", "ta", "kot", "lin", "do", "ck", "er", "re", "st",
+            "api", "web", "net", "go", "py", "rx", "db", "ui", "ops"
+    };
+
+    /**
+     * Параметры генерации. Значения по умолчанию дают около миллиона постов и нескольких миллионов комментариев.
+     */
+    public record Settings(long posts, long seed, int tags, double tagSkew, int maxTagsPerPost,
+                           int textMedian, double textSigma, int commentMedian,
+                           double commentsAlpha, int maxComments, double likesAlpha, double imageShare,
+                           int batchSize, boolean clean) {
+
+        public static Settings fromSystemProperties() {
+            return new Settings(
+                    Long.getLong("dataset.posts", 1_000_000),
+                    Long.getLong("dataset.seed", 42),
+                    Integer.getInteger("dataset.tags", 5_000),
+                    Double.parseDouble(System.getProperty("dataset.tag-skew", "1.1")),
+                    Integer.getInteger("dataset.max-tags-per-post", 6),
+                    Integer.getInteger("dataset.text-median", 1_500),
+                    Double.parseDouble(System.getProperty("dataset.text-sigma", "0.9")),
+                    Integer.getInteger("dataset.comment-median", 120),
+                    Double.parseDouble(System.getProperty("dataset.comments-alpha", "1.3")),
+                    Integer.getInteger("dataset.max-comments", 5_000),
+                    Double.parseDouble(System.getProperty("dataset.likes-alpha", "1.1")),
+                    Double.parseDouble(System.getProperty("dataset.image-share", "0.7")),
+                    Integer.getInteger("dataset.batch-size", 5_000),
+                    Boolean.getBoolean("dataset.clean"));
+        }
+    }
+
+    public record Result(long posts, long tags, long comments, long millis) {
+    }
+
+    private final DataSource dataSource;
+    private final Settings settings;
+
+    public DatasetGenerator(DataSource dataSource, Settings settings) {
+        this.dataSource = dataSource;
+        this.settings = settings;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Settings settings = Settings.fromSystemProperties();
+        String url = System.getProperty("dataset.db.url", DEFAULT_URL);
+        try (HikariDataSource dataSource = new HikariDataSource()) {
+            dataSource.setJdbcUrl(url);
+            dataSource.setUsername(System.getProperty("dataset.db.username", "sa"));
+            dataSource.setPassword(System.getProperty("dataset.db.password", ""));
+            dataSource.setMaximumPoolSize(1);
+            if (url.equals(DEFAULT_URL)) {
+                new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+            }
+
+            System.out.printf("url=%s, %s%n", url, settings);
+            Result result = new DatasetGenerator(dataSource, settings).generate();
+            System.out.printf("posts=%,d, post_tags=%,d, comments=%,d за %,d мс (%,.0f строк/с)%n",
+                    result.posts(), result.tags(), result.comments(), result.millis(),
+                    (result.posts() + result.tags() + result.comments()) * 1000.0 / Math.max(1, result.millis()));
+        }
+    }
+
+    public Result generate() throws SQLException {
+        long start = System.currentTimeMillis();
+        try (Connection connection = dataSource.getConnection()) {
+            boolean postgres = "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName());
+            connection.setAutoCommit(false);
+            if (settings.clean()) {
+                clean(connection, postgres);
+            }
+
+            SplittableRandom random = new SplittableRandom(settings.seed());
+            List<String> words = vocabulary(random, WORD_SYLLABLES, WORDS);
+            List<String> tags = vocabulary(random, TAG_SYLLABLES, settings.tags());
+            Zipf wordRanks = new Zipf(words.size(), 1.0);
+            Zipf tagRanks = new Zipf(tags.size(), settings.tagSkew());
+
+            long postId = maxId(connection, "posts");
+            long commentId = maxId(connection, "comments");
+            long tagRows = 0;
+            long commentRows = 0;
+            try (TableWriter posts = writer(connection, postgres, "posts",
+                    "id", "title", "text", "image_path", "tags", "likes_count", "version", "comments_count");
+                 TableWriter postTags = writer(connection, postgres, "post_tags", "post_id", "tag");
+                 TableWriter comments = writer(connection, postgres, "comments", "id", "post_id", "text")) {
+
+                for (long i = 1; i <= settings.posts(); i++) {
+                    postId++;
+                    Set<String> postTagSet = new LinkedHashSet<>();
+                    int tagCount = random.nextInt(settings.maxTagsPerPost() + 1);
+                    for (int t = 0; t < tagCount; t++) {
+                        postTagSet.add(tags.get(tagRanks.sample(random)));
+                    }
+                    int commentCount = heavyTail(random, settings.commentsAlpha(), settings.maxComments());
+
+                    posts.add(postId,
+                            capitalize(text(random, words, wordRanks, 15 + random.nextInt(50), false)),
+                            text(random, words, wordRanks, logNormal(random, settings.textMedian(), settings.textSigma()), true),
+                            random.nextDouble() < settings.imageShare()
+                                    ? new UUID(random.nextLong(), random.nextLong()) + "_photo.jpg"
+                                    : null,
+                            String.join(" ", postTagSet),
+                            heavyTail(random, settings.likesAlpha(), 1_000_000),
+                            0,
+                            commentCount);
+                    for (String tag : postTagSet.stream().map(TagQuery::normalize).collect(Collectors.toCollection(LinkedHashSet::new))) {
+                        postTags.add(postId, tag);
+                        tagRows++;
+                    }
+                    for (int c = 0; c < commentCount; c++) {
+                        comments.add(++commentId, postId,
+                                capitalize(text(random, words, wordRanks, logNormal(random, settings.commentMedian(), 0.8), false)));
+                    }
+                    commentRows += commentCount;
+
+                    if (i % settings.batchSize() == 0 || i == settings.posts()) {
+                        // Родительские строки раньше дочерних - иначе не пройдут внешние ключи
+                        posts.flush();
+                        postTags.flush();
+                        comments.flush();
+                        connection.commit();
+                    }
+                    if (i % PROGRESS_STEP == 0) {
+                        System.out.printf("%,d постов, %,d комментариев, %,d мс%n",
+                                i, commentRows, System.currentTimeMillis() - start);
+                    }
+                }
+            }
+
+            restartIdentity(connection, postgres, "posts", postId);
+            restartIdentity(connection, postgres, "comments", commentId);
+            connection.commit();
+            return new Result(settings.posts(), tagRows, commentRows, System.currentTimeMillis() - start);
+        }
+    }
+
+    private static void clean(Connection connection, boolean postgres) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            if (postgres) {
+                statement.execute("TRUNCATE posts, comments, post_tags RESTART IDENTITY CASCADE");
+            } else {
+                for (String table : new String[]{"comments", "post_tags", "posts"}) {
+                    statement.execute("DELETE FROM " + table);
+                }
+            }
+        }
+    }
+
+    private static long maxId(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    // Id вставлялись явно - последовательность нужно сдвинуть, иначе приложение получит конфликт ключей
+    private static void restartIdentity(Connection connection, boolean postgres, String table, long maxId) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            if (postgres) {
+                statement.execute("SELECT setval(pg_get_serial_sequence('" + table + "', 'id'), " + Math.max(maxId, 1)
+                        + ", " + (maxId > 0) + ")");
+            } else {
+                statement.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + (maxId + 1));
+            }
+        }
+    }
+
+    private static List<String> vocabulary(SplittableRandom random, String[] syllables, int size) {
+        Set<String> words = new LinkedHashSet<>();
+        while (words.size() < size) {
+            StringBuilder word = new StringBuilder();
+            int length = 1 + random.nextInt(4);
+            for (int i = 0; i < length; i++) {
+                word.append(syllables[random.nextInt(syllables.length)]);
+            }
+            words.add(word.toString());
+        }
+        return new ArrayList<>(words);
+    }
+
+    private static String text(SplittableRandom random, List<String> words, Zipf ranks, int length, boolean paragraphs) {
+        StringBuilder text = new StringBuilder(length + 16);
+        int sentence = 0;
+        int paragraph = 0;
+        while (text.length() < length) {
+            if (!text.isEmpty()) {
+                if (paragraphs && paragraph > 40 && random.nextInt(30) == 0) {
+                    text.append(".\r\n");
+                    sentence = 0;
+                    paragraph = 0;
+                } else if (sentence > 4 && random.nextInt(10) == 0) {
+                    text.append(". ");
+                    sentence = 0;
+                } else {
+                    text.append(' ');
+                }
+            }
+            String word = words.get(ranks.sample(random));
+            text.append(sentence == 0 ? capitalize(word) : word);
+            sentence++;
+            paragraph++;
+        }
+        return text.append('.').toString();
+    }
+
+    private static String capitalize(String text) {
+        return text.isEmpty() ? text : Character.toUpperCase(text.charAt(0)) + text.substring(1);
+    }
+
+    private static int logNormal(SplittableRandom random, int median, double sigma) {
+        double value = median * Math.exp(sigma * random.nextGaussian());
+        return (int) Math.max(1, Math.min(value, MAX_TEXT_LENGTH));
+    }
+
+    // Дискретный Парето с минимумом 0: большинство значений маленькие, редкие - на порядки больше
+    private static int heavyTail(SplittableRandom random, double alpha, int max) {
+        double value = Math.pow(1 - random.nextDouble(), -1 / alpha) - 1;
+        return (int) Math.min(value, max);
+    }
+
+    private TableWriter writer(Connection connection, boolean postgres, String table, String... columns)
+            throws SQLException {
+        return postgres
+                ? new CopyWriter(connection, table, columns)
+                : new BatchWriter(connection, table, columns);
+    }
+
+    private interface TableWriter extends AutoCloseable {
+
+        void add(Object... values) throws SQLException;
+
+        void flush() throws SQLException;
+
+        @Override
+        void close() throws SQLException;
+    }
+
+    private static final class BatchWriter implements TableWriter {
+
+        private final PreparedStatement statement;
+
+        BatchWriter(Connection connection, String table, String[] columns) throws SQLException {
+            String placeholders = String.join(", ", Collections.nCopies(columns.length, "?"));
+            statement = connection.prepareStatement(
+                    "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES (" + placeholders + ")");
+        }
+
+        @Override
+        public void add(Object... values) throws SQLException {
+            for (int i = 0; i < values.length; i++) {
+                statement.setObject(i + 1, values[i]);
+            }
+            statement.addBatch();
+        }
+
+        @Override
+        public void flush() throws SQLException {
+            statement.executeBatch();
+        }
+
+        @Override
+        public void close() throws SQLException {
+            statement.close();
+        }
+    }
+
+    private static final class CopyWriter implements TableWriter {
+
+        private final CopyManager copyManager;
+        private final String sql;
+        private final StringBuilder rows = new StringBuilder();
+
+        CopyWriter(Connection connection, String table, String[] columns) throws SQLException {
+            copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            sql = "COPY " + table + " (" + String.join(", ", columns) + ") FROM STDIN WITH (FORMAT csv)";
+        }
+
+        @Override
+        public void add(Object... values) {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    rows.append(',');
+                }
+                Object value = values[i];
+                if (value instanceof String text) {
+                    rows.append('"').append(text.replace("\"", "\"\"")).append('"');
+                } else if (value != null) {
+                    rows.append(value);
+                }
+            }
+            rows.append('\n');
+        }
+
+        @Override
+        public void flush() throws SQLException {
+            if (rows.isEmpty()) {
+                return;
+            }
+            try {
+                copyManager.copyIn(sql, new StringReader(rows.toString()));
+            } catch (IOException e) {
+                throw new SQLException("Не удалось выполнить COPY", e);
+            }
+            rows.setLength(0);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -107,4 +107,44 @@ class CommentRepositoryImplTest {
         assertEquals(1, comments.size());
         assertEquals("comment2", comments.get(0).getText());
     }
-}
\ No newline at end of file
+
+    @Test
+    void saveAndDelete_shouldKeepPostCommentsCount() {
+        //given
+        jdbcTemplate.execute("INSERT INTO posts (id, title) VALUES (1, 'post')");
+
+        //when
+        commentRepository.save(1L, Comment.builder().text("first").build());
+        commentRepository.save(1L, Comment.builder().text("second").build());
+        Long firstId = commentRepository.findByPostId(1L).get(0).getId();
+        commentRepository.delete(1L, firstId);
+        commentRepository.delete(1L, firstId);
+        commentRepository.delete(2L, firstId);
+
+        //then
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT comments_count FROM posts WHERE id = 1", Integer.class));
+    }
+
+    @Test
+    void findPage_shouldSeekByCursorInBothOrders() {
+        //given
+        jdbcTemplate.execute("INSERT INTO posts (id, title) VALUES (1, 'post')");
+        jdbcTemplate.execute("INSERT INTO posts (id, title) VALUES (2, 'other')");
+        for (int i = 1; i <= 5; i++) {
+            jdbcTemplate.update("INSERT INTO comments (id, post_id, text) VALUES (?, 1, ?)", i, "comment" + i);
+        }
+        jdbcTemplate.execute("INSERT INTO comments (id, post_id, text) VALUES (6, 2, 'foreign')");
+
+        //when
+        List<Comment> oldest = commentRepository.findPage(1L, null, false, 2);
+        List<Comment> afterOldest = commentRepository.findPage(1L, 2L, false, 10);
+        List<Comment> newest = commentRepository.findPage(1L, null, true, 2);
+        List<Comment> afterNewest = commentRepository.findPage(1L, 4L, true, 2);
+
+        //then
+        assertEquals(List.of(1L, 2L), oldest.stream().map(Comment::getId).toList());
+        assertEquals(List.of(3L, 4L, 5L), afterOldest.stream().map(Comment::getId).toList());
+        assertEquals(List.of(5L, 4L), newest.stream().map(Comment::getId).toList());
+        assertEquals(List.of(3L, 2L), afterNewest.stream().map(Comment::getId).toList());
+    }
+}
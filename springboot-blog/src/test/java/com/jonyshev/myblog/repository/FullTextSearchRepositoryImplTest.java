@@ -0,0 +1,46 @@
+package com.jonyshev.myblog.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FullTextSearchRepositoryImplTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private FullTextSearchRepositoryImpl searchRepository;
+
+    @Test
+    void isSupported_shouldRetry_whenDatabaseWasUnavailable() {
+        //given
+        when(jdbcTemplate.execute(ArgumentMatchers.<ConnectionCallback<Boolean>>any()))
+                .thenThrow(new DataAccessResourceFailureException("down"))
+                .thenReturn(true);
+
+        //when
+        boolean first = searchRepository.isSupported();
+        boolean second = searchRepository.isSupported();
+        boolean third = searchRepository.isSupported();
+
+        //then
+        assertFalse(first);
+        assertTrue(second);
+        assertTrue(third);
+        verify(jdbcTemplate, times(2)).execute(ArgumentMatchers.<ConnectionCallback<Boolean>>any());
+    }
+}
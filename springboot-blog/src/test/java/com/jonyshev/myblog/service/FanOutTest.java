@@ -0,0 +1,92 @@
+package com.jonyshev.myblog.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FanOutTest {
+
+    private final FanOut fanOut = new FanOut(500);
+
+    @AfterEach
+    void tearDown() {
+        fanOut.destroy();
+    }
+
+    @Test
+    void join_shouldRunTasksConcurrentlyOnVirtualThreads() {
+        //given
+        CountDownLatch bothStarted = new CountDownLatch(2);
+
+        //when
+        String result = fanOut.join(
+                () -> awaitSibling(bothStarted, "posts"),
+                () -> awaitSibling(bothStarted, "count"),
+                (a, b) -> a + "+" + b);
+
+        //then
+        assertEquals("posts:virtual+count:virtual", result);
+    }
+
+    @Test
+    void join_shouldFailFastAndInterruptSibling_whenTaskFails() throws Exception {
+        //given
+        CountDownLatch siblingStarted = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        long start = System.nanoTime();
+
+        //when
+        // Падаем только после старта соседа: ещё не запущенная задача отменяется без прерывания
+        IllegalArgumentException failure = assertThrows(IllegalArgumentException.class, () -> fanOut.join(
+                () -> {
+                    siblingStarted.await();
+                    throw new IllegalArgumentException("boom");
+                },
+                () -> {
+                    siblingStarted.countDown();
+                    return sleepUntilInterrupted(interrupted);
+                },
+                (a, b) -> b));
+
+        //then
+        assertEquals("boom", failure.getMessage());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 500);
+        assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void join_shouldCancelAllTasks_whenDeadlinePasses() throws Exception {
+        //given
+        CountDownLatch interrupted = new CountDownLatch(2);
+
+        //when //then
+        assertThrows(QueryTimeoutException.class, () -> fanOut.join(
+                () -> sleepUntilInterrupted(interrupted),
+                () -> sleepUntilInterrupted(interrupted),
+                (a, b) -> a));
+        assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+    }
+
+    private static String awaitSibling(CountDownLatch bothStarted, String name) throws InterruptedException {
+        bothStarted.countDown();
+        assertTrue(bothStarted.await(1, TimeUnit.SECONDS));
+        return name + ":" + (Thread.currentThread().isVirtual() ? "virtual" : "platform");
+    }
+
+    private static String sleepUntilInterrupted(CountDownLatch interrupted) {
+        try {
+            Thread.sleep(10_000);
+            return "slept";
+        } catch (InterruptedException e) {
+            interrupted.countDown();
+            return "interrupted";
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.jonyshev.myblog.service;
+
+import com.jonyshev.myblog.model.Feed;
+import com.jonyshev.myblog.model.Post;
+import com.jonyshev.myblog.model.PostSlice;
+import com.jonyshev.myblog.repository.CommentRepositoryImpl;
+import com.jonyshev.myblog.repository.FullTextSearchRepositoryImpl;
+import com.jonyshev.myblog.repository.PostRepositoryImpl;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Задержка и пропускная способность ленты с подсчётом постов при фиксированном размере пула соединений:
+ * пул из 200 платформенных потоков (как у Tomcat) против виртуального потока на запрос,
+ * последовательные запросы против параллельных ({@link PostService#getFeed}).
+ * Запуск: ./gradlew benchmark, другая база - -Dbenchmark.db.url=...
+ */
+@Tag("benchmark")
+class FeedFanOutBenchmarkTest {
+
+    private static final String DEFAULT_URL = "jdbc:h2:mem:feed-benchmark;DB_CLOSE_DELAY=-1";
+    private static final int POOL_SIZE = Integer.getInteger("benchmark.pool-size", 10);
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 400);
+    private static final int POSTS = Integer.getInteger("benchmark.posts", 5000);
+    private static final long DURATION_MS = Long.getLong("benchmark.duration-ms", 3000);
+    private static final String[] TAGS = {"", "java", "spring", "sql", "kotlin"};
+
+    @TempDir
+    Path uploads;
+
+    @Test
+    void feed_latencyAndThroughputByThreadModel() throws Exception {
+        String url = System.getProperty("benchmark.db.url", DEFAULT_URL);
+        try (HikariDataSource dataSource = new HikariDataSource()) {
+            dataSource.setJdbcUrl(url);
+            dataSource.setUsername(System.getProperty("benchmark.db.username", "sa"));
+            dataSource.setPassword(System.getProperty("benchmark.db.password", ""));
+            dataSource.setMaximumPoolSize(POOL_SIZE);
+            dataSource.setConnectionTimeout(30_000);
+            if (url.equals(DEFAULT_URL)) {
+                new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+            }
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            FanOut fanOut = new FanOut(30_000);
+            PostService postService = postService(jdbcTemplate, fanOut);
+            List<Long> ids = seed(postService);
+
+            System.out.printf("pool=%d, clients=%d, posts=%d, duration=%dms%n", POOL_SIZE, CLIENTS, POSTS, DURATION_MS);
+            Function<String, Object> sequential = search -> List.of(
+                    postService.getPostsPage(search, null, null, 20),
+                    postService.countPosts(search));
+            Function<String, Object> parallel = search -> postService.getFeed(search, null, null, 20, 1, true);
+
+            run("platform-200 sequential", Executors.newFixedThreadPool(200), sequential);
+            run("virtual      sequential", Executors.newVirtualThreadPerTaskExecutor(), sequential);
+            run("virtual      fan-out   ", Executors.newVirtualThreadPerTaskExecutor(), parallel);
+
+            fanOut.destroy();
+            ids.forEach(postService::deletePost);
+        }
+    }
+
+    private void run(String name, ExecutorService server, Function<String, Object> request) throws Exception {
+        ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DURATION_MS);
+        List<Future<long[]>> results = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            results.add(clients.submit(() -> {
+                List<Long> latencies = new ArrayList<>();
+                while (System.nanoTime() < deadline) {
+                    String search = TAGS[ThreadLocalRandom.current().nextInt(TAGS.length)];
+                    long start = System.nanoTime();
+                    server.submit(() -> request.apply(search)).get();
+                    latencies.add(System.nanoTime() - start);
+                }
+                return latencies.stream().mapToLong(Long::longValue).toArray();
+            }));
+        }
+
+        long[] latencies = new long[0];
+        for (Future<long[]> result : results) {
+            long[] client = result.get();
+            int offset = latencies.length;
+            latencies = Arrays.copyOf(latencies, offset + client.length);
+            System.arraycopy(client, 0, latencies, offset, client.length);
+        }
+        clients.shutdown();
+        server.shutdown();
+        Arrays.sort(latencies);
+
+        assertTrue(latencies.length > 0);
+        System.out.printf("%s %,10.0f req/s  p50=%6.2fms  p99=%7.2fms%n", name,
+                latencies.length * 1000.0 / DURATION_MS,
+                percentile(latencies, 0.50), percentile(latencies, 0.99));
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.round(quantile * (sorted.length - 1)))] / 1_000_000.0;
+    }
+
+    private PostService postService(JdbcTemplate jdbcTemplate, FanOut fanOut) {
+        PostRepositoryImpl postRepository = new PostRepositoryImpl(jdbcTemplate);
+        CommentRepositoryImpl commentRepository = new CommentRepositoryImpl(jdbcTemplate);
+        PostCache postCache = new PostCache(1000, 60);
+        return new PostServiceImpl(postRepository, commentRepository, new TagIndex(postRepository),
+                new LikeBuffer(postRepository, postCache), new PostCounter(), new ImageVariants(uploads, 1, 50_000_000),
+                new ImageStorage(uploads, 5 * 1024 * 1024), postCache,
+                new FullTextIndex(postRepository, commentRepository, new FullTextSearchRepositoryImpl(jdbcTemplate)),
+                fanOut);
+    }
+
+    private List<Long> seed(PostService postService) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < POSTS; i++) {
+            String tags = TAGS[1 + i % (TAGS.length - 1)] + " " + TAGS[1 + (i / 7) % (TAGS.length - 1)];
+            ids.add(postService.createPost("post " + i, "text ".repeat(200), tags, null));
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,119 @@
+package com.jonyshev.myblog.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImageStorageTest {
+
+    private static final byte[] PNG_HEADER = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    @TempDir
+    Path uploadDir;
+
+    @Test
+    void store_shouldWriteFileNamedByDigest() throws Exception {
+        //given
+        byte[] image = image(PNG_HEADER, 200_000);
+        ImageStorage storage = new ImageStorage(uploadDir, 1_000_000);
+
+        //when
+        String name = storage.store(new ByteArrayInputStream(image));
+
+        //then
+        String digest = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(image));
+        assertEquals(digest + ".png", name);
+        assertArrayEquals(image, Files.readAllBytes(uploadDir.resolve(name)));
+        assertEquals(List.of(name), files());
+    }
+
+    @Test
+    void store_shouldKeepExistingFileForSameContent() throws Exception {
+        //given
+        byte[] image = image(new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0}, 1000);
+        ImageStorage storage = new ImageStorage(uploadDir, 1_000_000);
+        String first = storage.store(new ByteArrayInputStream(image));
+        Files.setLastModifiedTime(uploadDir.resolve(first), FileTime.fromMillis(0));
+
+        //when
+        String second = storage.store(new ByteArrayInputStream(image));
+
+        //then
+        assertEquals(first, second);
+        assertEquals(0, Files.getLastModifiedTime(uploadDir.resolve(second)).toMillis());
+        assertEquals(List.of(first), files());
+    }
+
+    @Test
+    void store_shouldRejectContentThatIsNotImage() throws IOException {
+        //given
+        ImageStorage storage = new ImageStorage(uploadDir, 1_000_000);
+        byte[] script = "<script>alert(1)</script>".getBytes(StandardCharsets.UTF_8);
+
+        //when
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> storage.store(new ByteArrayInputStream(script)));
+
+        //then
+        assertEquals(HttpStatus.UNSUPPORTED_MEDIA_TYPE, e.getStatusCode());
+        assertEquals(List.of(), files());
+    }
+
+    @Test
+    void store_shouldStopReadingAtSizeLimitAndLeaveNoFiles() throws IOException {
+        //given
+        ImageStorage storage = new ImageStorage(uploadDir, 100_000);
+        ByteArrayInputStream in = new ByteArrayInputStream(image(PNG_HEADER, 1_000_000));
+
+        //when
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> storage.store(in));
+
+        //then
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, e.getStatusCode());
+        assertEquals(List.of(), files());
+        assertTrue(in.available() > 800_000);
+    }
+
+    @Test
+    void extension_shouldDetectSupportedFormats() {
+        assertEquals("png", ImageStorage.extension(PNG_HEADER));
+        assertEquals("jpg", ImageStorage.extension(new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xDB}));
+        assertEquals("gif", ImageStorage.extension("GIF89a....".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals("webp", ImageStorage.extension("RIFF\0\0\0\0WEBP".getBytes(StandardCharsets.US_ASCII)));
+        assertNull(ImageStorage.extension("RIFF\0\0\0\0WAVE".getBytes(StandardCharsets.US_ASCII)));
+        assertNull(ImageStorage.extension(new byte[0]));
+    }
+
+    private static byte[] image(byte[] header, int size) {
+        byte[] image = Arrays.copyOf(header, size);
+        for (int i = header.length; i < size; i++) {
+            image[i] = (byte) (i * 31);
+        }
+        return image;
+    }
+
+    private List<String> files() throws IOException {
+        try (Stream<Path> files = Files.list(uploadDir)) {
+            return files.map(path -> path.getFileName().toString()).toList();
+        }
+    }
+}
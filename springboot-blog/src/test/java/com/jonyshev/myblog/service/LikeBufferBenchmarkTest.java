@@ -0,0 +1,113 @@
+package com.jonyshev.myblog.service;
+
+import com.jonyshev.myblog.model.Post;
+import com.jonyshev.myblog.repository.PostRepositoryImpl;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Лайки "горячих" постов тем же путём, что и в приложении: потоки запросов пишут в {@link LikeBuffer},
+ * один поток по расписанию сбрасывает его в базу. Показывает пропускную способность и длительность сброса
+ * при разных интервалах.
+ * Запуск: ./gradlew benchmark, другая база - -Dbenchmark.db.url=...
+ */
+@Tag("benchmark")
+class LikeBufferBenchmarkTest {
+
+    private static final String DEFAULT_URL = "jdbc:h2:mem:likes-benchmark;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000";
+    private static final int THREADS = Integer.getInteger("benchmark.threads", 16);
+    private static final int HOT_POSTS = Integer.getInteger("benchmark.hot-posts", 10);
+    private static final long DURATION_MS = Long.getLong("benchmark.duration-ms", 3000);
+
+    @Test
+    void like_throughputAndFlushTimeByFlushInterval() throws Exception {
+        String url = System.getProperty("benchmark.db.url", DEFAULT_URL);
+        try (HikariDataSource dataSource = new HikariDataSource()) {
+            dataSource.setJdbcUrl(url);
+            dataSource.setUsername(System.getProperty("benchmark.db.username", "sa"));
+            dataSource.setPassword(System.getProperty("benchmark.db.password", ""));
+            if (url.equals(DEFAULT_URL)) {
+                new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+            }
+            PostRepositoryImpl repository = new PostRepositoryImpl(new JdbcTemplate(dataSource));
+
+            System.out.printf("threads=%d, hot posts=%d, duration=%dms%n", THREADS, HOT_POSTS, DURATION_MS);
+            for (long intervalMs : new long[]{10, 100, 1000}) {
+                long[] ids = new long[HOT_POSTS];
+                for (int i = 0; i < ids.length; i++) {
+                    ids[i] = repository.save(Post.builder().title("benchmark").text("text").tags(List.of()).build()).getId();
+                }
+                LikeBuffer likeBuffer = new LikeBuffer(repository, new PostCache(HOT_POSTS, 60));
+
+                Result result = likeConcurrently(likeBuffer, ids, intervalMs);
+                likeBuffer.flush();
+
+                System.out.printf("interval=%-5dms %,12.0f likes/s, flushes=%-4d flush avg=%.2fms max=%.2fms%n",
+                        intervalMs, result.likes() * 1000.0 / DURATION_MS, result.flushes(),
+                        result.flushNanos() / 1e6 / Math.max(result.flushes(), 1), result.maxFlushNanos() / 1e6);
+                long stored = 0;
+                for (long id : ids) {
+                    stored += repository.findById(id).orElseThrow().getLikesCount();
+                    repository.deleteById(id);
+                }
+                assertEquals(result.likes(), stored);
+            }
+        }
+    }
+
+    private Result likeConcurrently(LikeBuffer likeBuffer, long[] ids, long intervalMs) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DURATION_MS);
+        Future<long[]> flusher = executor.submit(() -> {
+            long flushes = 0;
+            long total = 0;
+            long max = 0;
+            while (System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(intervalMs);
+                long start = System.nanoTime();
+                likeBuffer.flush();
+                long elapsed = System.nanoTime() - start;
+                flushes++;
+                total += elapsed;
+                max = Math.max(max, elapsed);
+            }
+            return new long[]{flushes, total, max};
+        });
+        List<Future<Long>> likers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            likers.add(executor.submit(() -> {
+                long count = 0;
+                while (System.nanoTime() < deadline) {
+                    likeBuffer.add(ids[ThreadLocalRandom.current().nextInt(ids.length)], 1);
+                    count++;
+                }
+                return count;
+            }));
+        }
+
+        long likes = 0;
+        for (Future<Long> liker : likers) {
+            likes += liker.get();
+        }
+        long[] flushes = flusher.get();
+        executor.shutdown();
+        return new Result(likes, flushes[0], flushes[1], flushes[2]);
+    }
+
+    private record Result(long likes, long flushes, long flushNanos, long maxFlushNanos) {
+    }
+}
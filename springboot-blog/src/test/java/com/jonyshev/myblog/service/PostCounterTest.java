@@ -0,0 +1,99 @@
+package com.jonyshev.myblog.service;
+
+import com.jonyshev.myblog.model.TagQuery;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PostCounterTest {
+
+    private final PostCounter postCounter = new PostCounter();
+
+    @Test
+    void count_shouldMaintainTotalIncrementally() {
+        //given
+        AtomicInteger loads = new AtomicInteger();
+        TagQuery all = TagQuery.parse("");
+
+        //when
+        long initial = postCounter.count(all, query -> {
+            loads.incrementAndGet();
+            return 10;
+        });
+        postCounter.beforeChange();
+        postCounter.afterChange(1);
+        postCounter.beforeChange();
+        postCounter.afterChange(-1);
+        postCounter.beforeChange();
+        postCounter.afterChange(1);
+        long current = postCounter.count(all, query -> {
+            loads.incrementAndGet();
+            return 0;
+        });
+
+        //then
+        assertEquals(10, initial);
+        assertEquals(11, current);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void count_shouldReloadFilteredCount_afterChange() {
+        //given
+        TagQuery java = TagQuery.parse("java");
+        postCounter.count(java, query -> 2);
+
+        //when
+        long cached = postCounter.count(java, query -> 100);
+        postCounter.beforeChange();
+        postCounter.afterChange(0);
+        long reloaded = postCounter.count(java, query -> 3);
+
+        //then
+        assertEquals(2, cached);
+        assertEquals(3, reloaded);
+    }
+
+    @Test
+    void count_shouldNotCache_whenPostsChangedDuringLoad() {
+        //given
+        TagQuery all = TagQuery.parse("");
+
+        //when
+        long counted = postCounter.count(all, query -> {
+            postCounter.beforeChange();
+            postCounter.afterChange(1);
+            return 5;
+        });
+        long reloaded = postCounter.count(all, query -> 6);
+
+        //then
+        assertEquals(5, counted);
+        assertEquals(6, reloaded);
+    }
+
+    @Test
+    void isCached_shouldFollowCachedCounts() {
+        //given
+        TagQuery all = TagQuery.parse("");
+        TagQuery java = TagQuery.parse("java");
+
+        //when
+        boolean before = postCounter.isCached(all) || postCounter.isCached(java);
+        postCounter.count(all, query -> 10);
+        postCounter.count(java, query -> 2);
+        boolean loaded = postCounter.isCached(all) && postCounter.isCached(java);
+        postCounter.beforeChange();
+        postCounter.afterChange(1);
+
+        //then
+        assertFalse(before);
+        assertTrue(loaded);
+        assertTrue(postCounter.isCached(all));
+        assertFalse(postCounter.isCached(java));
+    }
+}
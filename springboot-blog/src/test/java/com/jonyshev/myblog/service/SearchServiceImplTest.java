@@ -0,0 +1,83 @@
+package com.jonyshev.myblog.service;
+
+import com.jonyshev.myblog.model.Post;
+import com.jonyshev.myblog.model.SearchHit;
+import com.jonyshev.myblog.model.SearchPage;
+import com.jonyshev.myblog.repository.FullTextSearchRepository;
+import com.jonyshev.myblog.repository.PostRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SearchServiceImplTest {
+
+    @Mock
+    private FullTextSearchRepository searchRepository;
+
+    @Mock
+    private FullTextIndex fullTextIndex;
+
+    @Mock
+    private PostRepository postRepository;
+
+    @InjectMocks
+    private SearchServiceImpl searchService;
+
+    @Test
+    void search_shouldUseDatabaseAndConvertMarkers_whenSupported() {
+        //given
+        when(searchRepository.isSupported()).thenReturn(true);
+        when(searchRepository.search("spring", 2, 3)).thenReturn(List.of(
+                new SearchHit(5L, "five", "<p>" + FullTextSearchRepository.MARK_START + "Spring" + FullTextSearchRepository.MARK_END),
+                new SearchHit(3L, "three", ""),
+                new SearchHit(1L, "one", "")));
+        //when
+        SearchPage page = searchService.search("spring", 2, 2);
+        //then
+        assertEquals(2, page.hits().size());
+        assertEquals("&lt;p&gt;<mark>Spring</mark>", page.hits().get(0).snippet());
+        assertTrue(page.hasNext());
+        assertTrue(page.hasPrevious());
+        verify(fullTextIndex, never()).search(any(), anyLong(), anyInt());
+    }
+
+    @Test
+    void search_shouldKeepIndexRankOrder_whenDatabaseSearchUnsupported() {
+        //given
+        when(fullTextIndex.search("spring", 0, 11)).thenReturn(new long[]{2L, 7L});
+        when(postRepository.findByIds(new long[]{2L, 7L})).thenReturn(List.of(
+                Post.builder().id(7L).title("seven").text("нет совпадений").build(),
+                Post.builder().id(2L).title("two").text("про Spring").build()));
+        //when
+        SearchPage page = searchService.search("spring", 10, 1);
+        //then
+        assertEquals(List.of(2L, 7L), page.hits().stream().map(SearchHit::postId).toList());
+        assertEquals("про <mark>Spring</mark>", page.hits().get(0).snippet());
+        assertFalse(page.hasNext());
+        assertFalse(page.hasPrevious());
+    }
+
+    @Test
+    void search_shouldReturnEmptyPage_whenQueryBlank() {
+        //when
+        SearchPage page = searchService.search("  ", 10, 1);
+        //then
+        assertTrue(page.hits().isEmpty());
+        verify(searchRepository, never()).isSupported();
+    }
+}
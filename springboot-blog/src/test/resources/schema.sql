@@ -4,7 +4,9 @@ CREATE TABLE IF NOT EXISTS posts (
                     text TEXT,
                     image_path VARCHAR(255),
                     tags TEXT,
-                    likes_count INTEGER DEFAULT 0
+                    likes_count INTEGER DEFAULT 0,
+                    version BIGINT NOT NULL DEFAULT 0,
+                    comments_count INTEGER NOT NULL DEFAULT 0
                 );
 
 CREATE TABLE IF NOT EXISTS comments (
@@ -12,4 +14,15 @@ CREATE TABLE IF NOT EXISTS comments (
                     post_id BIGINT NOT NULL,
                     text TEXT,
                     CONSTRAINT fk_comments_posts FOREIGN KEY (post_id) REFERENCES posts(id) ON DELETE CASCADE
-                );
\ No newline at end of file
+                );
+
+CREATE INDEX IF NOT EXISTS idx_comments_post_id ON comments (post_id, id);
+
+CREATE TABLE IF NOT EXISTS post_tags (
+                    post_id BIGINT NOT NULL,
+                    tag VARCHAR(255) NOT NULL,
+                    PRIMARY KEY (post_id, tag),
+                    CONSTRAINT fk_post_tags_posts FOREIGN KEY (post_id) REFERENCES posts(id) ON DELETE CASCADE
+                );
+
+CREATE INDEX IF NOT EXISTS idx_post_tags_tag ON post_tags (tag, post_id);
\ No newline at end of file
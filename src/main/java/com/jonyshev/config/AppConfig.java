@@ -1,11 +1,74 @@
 package com.jonyshev.config;
 
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.JvmMemoryMetrics;
+import io.micrometer.core.instrument.binder.jvm.JvmThreadMetrics;
+import io.micrometer.core.instrument.binder.system.ProcessorMetrics;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.time.Duration;
+import java.util.Arrays;
 
 @Configuration
 @ComponentScan(basePackages = "com.jonyshev")
 @Import({DatabaseConfig.class})
+@EnableScheduling
 public class AppConfig {
+
+    @Bean
+    public PrometheusMeterRegistry meterRegistry(Environment env) {
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        registry.config().meterFilter(histograms(env));
+        new JvmMemoryMetrics().bindTo(registry);
+        new JvmThreadMetrics().bindTo(registry);
+        new ProcessorMetrics().bindTo(registry);
+        return registry;
+    }
+
+    @Bean
+    public MetricsFilter metricsFilter(PrometheusMeterRegistry meterRegistry) {
+        return new MetricsFilter(meterRegistry);
+    }
+
+    // static - постпроцессор создаётся раньше остальных бинов и не тянет за собой конфигурацию
+    @Bean
+    public static LayerTimingPostProcessor layerTimingPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new LayerTimingPostProcessor(meterRegistry);
+    }
+
+    // Аналог management.metrics.distribution.* из Spring Boot для таймеров слоёв и HTTP
+    private static MeterFilter histograms(Environment env) {
+        boolean histogram = env.getProperty("metrics.histogram", Boolean.class, false);
+        double[] percentiles = Arrays.stream(env.getProperty("metrics.percentiles", String[].class, new String[0]))
+                .mapToDouble(Double::parseDouble)
+                .toArray();
+        double[] slo = Arrays.stream(env.getProperty("metrics.slo-ms", String[].class, new String[0]))
+                .mapToDouble(ms -> Duration.ofMillis(Long.parseLong(ms.trim())).toNanos())
+                .toArray();
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (!id.getName().equals(LayerTimingPostProcessor.METRIC) && !id.getName().equals("http.server.requests")) {
+                    return config;
+                }
+                return DistributionStatisticConfig.builder()
+                        .percentilesHistogram(histogram)
+                        .percentiles(percentiles)
+                        .serviceLevelObjectives(slo)
+                        .build()
+                        .merge(config);
+            }
+        };
+    }
 }
@@ -1,32 +1,68 @@
 package com.jonyshev.config;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.core.env.Environment;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.jdbc.datasource.init.DataSourceInitializer;
 import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
 
 @Configuration
+@EnableTransactionManagement(proxyTargetClass = true)
+@PropertySource("classpath:application.properties")
+@PropertySource(value = "file:${myblog.config:${user.home}/myblog.properties}", ignoreResourceNotFound = true)
 public class DatabaseConfig {
 
     @Bean
-    public DataSource dataSource() {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName("org.postgresql.Driver");
-        dataSource.setUrl("jdbc:postgresql://localhost:5432/myblog");
-        dataSource.setUsername("postgres");
-        dataSource.setPassword("postgres");
-        return dataSource;
+    public PoolMetrics poolMetrics() {
+        return new PoolMetrics();
+    }
+
+    @Bean
+    public SlowQueryLog slowQueryLog(Environment env) {
+        return new SlowQueryLog(
+                env.getProperty("queries.slow.threshold-ms", Long.class, 0L),
+                env.getProperty("queries.slow.capacity", Integer.class, 100),
+                env.getProperty("queries.slow.explain-sample-rate", Double.class, 0.0));
+    }
+
+    @Bean
+    public DataSource dataSource(Environment env, PoolMetrics poolMetrics, SlowQueryLog slowQueryLog) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("myblog");
+        config.setDriverClassName(env.getProperty("db.driver-class-name", "org.postgresql.Driver"));
+        config.setJdbcUrl(env.getRequiredProperty("db.url"));
+        config.setUsername(env.getProperty("db.username"));
+        config.setPassword(env.getProperty("db.password"));
+        config.setMinimumIdle(env.getProperty("db.pool.minimum-idle", Integer.class, 2));
+        config.setMaximumPoolSize(env.getProperty("db.pool.maximum-size", Integer.class, 10));
+        config.setConnectionTimeout(env.getProperty("db.pool.connection-timeout-ms", Long.class, 3000L));
+        config.setMaxLifetime(env.getProperty("db.pool.max-lifetime-ms", Long.class, 1800000L));
+        config.setLeakDetectionThreshold(env.getProperty("db.pool.leak-detection-threshold-ms", Long.class, 0L));
+        config.setRegisterMbeans(true);
+        config.setMetricsTrackerFactory(poolMetrics);
+        return new InstrumentedDataSource(new HikariDataSource(config), slowQueryLog);
     }
 
     @Bean
     public DataSourceInitializer dataSourceInitializer(DataSource dataSource) {
         ResourceDatabasePopulator databasePopulator = new ResourceDatabasePopulator();
         databasePopulator.addScript(new ClassPathResource("schema.sql"));
+        if (isPostgres(dataSource)) {
+            databasePopulator.addScript(new ClassPathResource("schema-postgresql.sql"));
+        }
         DataSourceInitializer initializer = new DataSourceInitializer();
         initializer.setDataSource(dataSource);
         initializer.setDatabasePopulator(databasePopulator);
@@ -37,4 +73,18 @@ public class DatabaseConfig {
     public JdbcTemplate jdbcTemplate(DataSource dataSource) {
         return new JdbcTemplate(dataSource);
     }
+
+    @Bean
+    public PlatformTransactionManager transactionManager(DataSource dataSource) {
+        return new DataSourceTransactionManager(dataSource);
+    }
+
+    private boolean isPostgres(DataSource dataSource) {
+        try {
+            String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+            return "PostgreSQL".equals(product);
+        } catch (MetaDataAccessException e) {
+            return false;
+        }
+    }
 }
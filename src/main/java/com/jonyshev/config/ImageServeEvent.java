@@ -0,0 +1,30 @@
+package com.jonyshev.config;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Отдача картинки из /images/** или /uploads/**, включая ответы 304.
+ */
+@Name("myblog.ImageServe")
+@Label("Image Serve")
+@Category({"MyBlog", "Images"})
+@Description("Отдача картинки статическим обработчиком")
+@StackTrace(false)
+public class ImageServeEvent extends Event {
+
+    @Label("URI")
+    public String uri;
+
+    @Label("Status")
+    public int status;
+
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+}
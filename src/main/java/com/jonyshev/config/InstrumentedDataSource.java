@@ -0,0 +1,136 @@
+package com.jonyshev.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Обёртка над пулом: считает выполненные statement-ы, прочитанные строки и время в базе
+ * в {@link QueryStats} текущего запроса, медленные запросы вместе с параметрами пишет в {@link SlowQueryLog}.
+ * Без активного scope и без журнала работает как обычный пул.
+ */
+public class InstrumentedDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    private final SlowQueryLog slowQueryLog;
+
+    public InstrumentedDataSource(DataSource targetDataSource) {
+        this(targetDataSource, null);
+    }
+
+    public InstrumentedDataSource(DataSource targetDataSource, SlowQueryLog slowQueryLog) {
+        super(targetDataSource);
+        // Выключенный журнал равносилен его отсутствию: параметры statement-ов не копируются
+        this.slowQueryLog = slowQueryLog != null && slowQueryLog.isEnabled() ? slowQueryLog : null;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connection(super.getConnection(username, password));
+    }
+
+    // Пул закрывается вместе с бином-обёрткой
+    @Override
+    public void close() throws Exception {
+        if (getTargetDataSource() instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private Connection connection(Connection target) {
+        return proxy(Connection.class, target, (proxy, method, args) -> {
+            Object result = invoke(proxy, target, method, args);
+            if (result instanceof Statement statement && method.getName().startsWith("prepare")) {
+                return statement(statement, (String) args[0]);
+            }
+            if (result instanceof Statement statement) {
+                return statement(statement, null);
+            }
+            return result;
+        });
+    }
+
+    private Statement statement(Statement target, String preparedSql) {
+        Class<? extends Statement> type = target instanceof CallableStatement ? CallableStatement.class
+                : target instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+        // Параметры нужны только журналу медленных запросов
+        Map<Integer, Object> params = slowQueryLog == null ? null : new TreeMap<>();
+        return proxy(type, target, (proxy, method, args) -> {
+            QueryStats stats = QueryStats.current();
+            String name = method.getName();
+            if (params != null) {
+                if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                    params.put(index, name.equals("setNull") ? null : args[1]);
+                } else if (name.equals("clearParameters")) {
+                    params.clear();
+                }
+            }
+            if ((stats == null && params == null) || !name.startsWith("execute")) {
+                Object result = invoke(proxy, target, method, args);
+                return stats != null && result instanceof ResultSet resultSet ? resultSet(resultSet) : result;
+            }
+            long start = System.nanoTime();
+            Object result = invoke(proxy, target, method, args);
+            long elapsed = System.nanoTime() - start;
+            String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : preparedSql;
+            if (stats != null) {
+                stats.recordStatement(sql, elapsed);
+            }
+            if (params != null && sql != null && slowQueryLog.isSlow(elapsed)) {
+                slowQueryLog.record(sql, params, elapsed, getTargetDataSource());
+            }
+            return stats != null && result instanceof ResultSet resultSet ? resultSet(resultSet) : result;
+        });
+    }
+
+    private static ResultSet resultSet(ResultSet target) {
+        return proxy(ResultSet.class, target, (proxy, method, args) -> {
+            if (!method.getName().equals("next")) {
+                return invoke(proxy, target, method, args);
+            }
+            long start = System.nanoTime();
+            boolean hasRow = target.next();
+            QueryStats stats = QueryStats.current();
+            if (stats != null) {
+                stats.recordFetch(hasRow ? 1 : 0, System.nanoTime() - start);
+            }
+            return hasRow;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<? extends T> type, T target, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(InstrumentedDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object invoke(Object proxy, Object target, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                try {
+                    return method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.jonyshev.config;
+
+import com.jonyshev.repository.CommentRepository;
+import com.jonyshev.repository.PostRepository;
+import com.jonyshev.service.PostService;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.AbstractAdvisingBeanPostProcessor;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Таймер myblog.calls на обработчиках контроллеров и на всех методах PostService, PostRepository и CommentRepository.
+ * Теги: layer (controller/service/repository), operation (Интерфейс.метод), outcome (success/error), exception.
+ * Разница controller и http.server.requests - время рендеринга шаблона, repository - время в базе.
+ * Для репозиториев дополнительно пишется событие JFR {@link RepositoryCallEvent}, если оно включено в записи.
+ */
+public class LayerTimingPostProcessor extends AbstractAdvisingBeanPostProcessor {
+
+    public static final String METRIC = "myblog.calls";
+
+    private static final Map<Class<?>, String> LAYERS = Map.of(
+            PostService.class, "service",
+            PostRepository.class, "repository",
+            CommentRepository.class, "repository");
+
+    public LayerTimingPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.advisor = new DefaultPointcutAdvisor(new StaticMethodMatcherPointcut() {
+            @Override
+            public boolean matches(Method method, Class<?> targetClass) {
+                return operation(method, targetClass) != null;
+            }
+        }, new TimingInterceptor(meterRegistry));
+        // Снаружи транзакционного прокси - в таймер репозитория входит и коммит
+        setBeforeExistingAdvisors(true);
+        setProxyTargetClass(true);
+    }
+
+    static String[] operation(Method method, Class<?> targetClass) {
+        if (AnnotatedElementUtils.hasAnnotation(targetClass, Controller.class)) {
+            return AnnotatedElementUtils.hasAnnotation(method, RequestMapping.class)
+                    ? new String[]{"controller", targetClass.getSimpleName() + "." + method.getName()}
+                    : null;
+        }
+        for (Map.Entry<Class<?>, String> layer : LAYERS.entrySet()) {
+            Class<?> type = layer.getKey();
+            if (type.isAssignableFrom(targetClass) && declares(type, method)) {
+                return new String[]{layer.getValue(), type.getSimpleName() + "." + method.getName()};
+            }
+        }
+        return null;
+    }
+
+    private static boolean declares(Class<?> type, Method method) {
+        try {
+            type.getMethod(method.getName(), method.getParameterTypes());
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static final class TimingInterceptor implements MethodInterceptor {
+
+        private final ObjectProvider<MeterRegistry> meterRegistry;
+        private final Map<Method, Call> calls = new ConcurrentHashMap<>();
+
+        private TimingInterceptor(ObjectProvider<MeterRegistry> meterRegistry) {
+            this.meterRegistry = meterRegistry;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            Call call = calls.computeIfAbsent(invocation.getMethod(), method -> call(method, invocation));
+            RepositoryCallEvent event = call.repository() ? new RepositoryCallEvent() : null;
+            // Отдельный scope считает только запросы этого вызова, во внешний scope они попадают как обычно
+            QueryStats stats = null;
+            if (event != null && event.isEnabled()) {
+                stats = QueryStats.start();
+                event.begin();
+            }
+            long start = System.nanoTime();
+            String outcome = "success";
+            String exception = "none";
+            try {
+                return invocation.proceed();
+            } catch (Throwable e) {
+                outcome = "error";
+                exception = e.getClass().getSimpleName();
+                throw e;
+            } finally {
+                call.timer()
+                        .withTags("outcome", outcome, "exception", exception)
+                        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                if (stats != null) {
+                    stats.end();
+                    commit(event, call, stats);
+                }
+            }
+        }
+
+        private static void commit(RepositoryCallEvent event, Call call, QueryStats stats) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.method = call.operation();
+                event.sql = String.join(";\n", stats.getSql());
+                event.statements = stats.getStatements();
+                event.rows = stats.getRows();
+                event.commit();
+            }
+        }
+
+        private Call call(Method method, MethodInvocation invocation) {
+            String[] operation = operation(method, AopUtils.getTargetClass(invocation.getThis()));
+            Meter.MeterProvider<Timer> timer = Timer.builder(METRIC)
+                    .description("Время вызова контроллера, сервиса или репозитория")
+                    .tag("layer", operation[0])
+                    .tag("operation", operation[1])
+                    .withRegistry(meterRegistry.getObject());
+            return new Call(timer, operation[0].equals("repository"), operation[1]);
+        }
+    }
+
+    private record Call(Meter.MeterProvider<Timer> timer, boolean repository, String operation) {
+    }
+}
@@ -0,0 +1,77 @@
+package com.jonyshev.config;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Таймер http.server.requests (теги как у Spring Boot) и выдача метрик в формате Prometheus по /actuator/prometheus.
+ * Подключается в web.xml через DelegatingFilterProxy.
+ */
+public class MetricsFilter extends OncePerRequestFilter {
+
+    static final String SCRAPE_PATH = "/actuator/prometheus";
+    private static final String SCRAPE_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final PrometheusMeterRegistry meterRegistry;
+
+    public MetricsFilter(PrometheusMeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (SCRAPE_PATH.equals(request.getRequestURI().substring(request.getContextPath().length()))) {
+            response.setContentType(SCRAPE_CONTENT_TYPE);
+            response.getWriter().write(meterRegistry.scrape());
+            return;
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String exception = "none";
+        try {
+            chain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            int status = exception.equals("none") ? response.getStatus() : 500;
+            sample.stop(Timer.builder("http.server.requests")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri(request, status))
+                    .tag("status", String.valueOf(status))
+                    .tag("outcome", outcome(status))
+                    .tag("exception", exception)
+                    .register(meterRegistry));
+        }
+    }
+
+    // Шаблон маршрута, а не сам путь - иначе каждый id поста станет отдельной серией
+    private static String uri(HttpServletRequest request, int status) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (pattern != null) {
+            return pattern.toString();
+        }
+        if (status == 404) {
+            return "NOT_FOUND";
+        }
+        return status / 100 == 3 ? "REDIRECTION" : "UNKNOWN";
+    }
+
+    private static String outcome(int status) {
+        HttpStatus.Series series = HttpStatus.Series.resolve(status);
+        if (series == null) {
+            return "UNKNOWN";
+        }
+        return series == HttpStatus.Series.SUCCESSFUL ? "SUCCESS" : series.name();
+    }
+}
@@ -0,0 +1,59 @@
+package com.jonyshev.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+
+/**
+ * Открывает {@link QueryStats} на время обработки запроса, отдаёт итог в заголовке Server-Timing
+ * и пишет в лог запросы, превысившие бюджет по числу statement-ов или по времени в БД (0 - без ограничения).
+ */
+public class QueryBudgetInterceptor implements HandlerInterceptor {
+
+    static final String SERVER_TIMING = "Server-Timing";
+    private static final String STATS_ATTRIBUTE = QueryBudgetInterceptor.class.getName() + ".stats";
+    private static final Log log = LogFactory.getLog(QueryBudgetInterceptor.class);
+
+    private final int maxStatements;
+    private final long maxDbMillis;
+
+    public QueryBudgetInterceptor(int maxStatements, long maxDbMillis) {
+        this.maxStatements = maxStatements;
+        this.maxDbMillis = maxDbMillis;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.setAttribute(STATS_ATTRIBUTE, QueryStats.start());
+        return true;
+    }
+
+    // Заголовок нужно выставить до рендеринга шаблона: после записи тела он уже не уйдёт клиенту
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                           ModelAndView modelAndView) {
+        if (request.getAttribute(STATS_ATTRIBUTE) instanceof QueryStats stats && !response.isCommitted()) {
+            response.addHeader(SERVER_TIMING, stats.toServerTiming());
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (!(request.getAttribute(STATS_ATTRIBUTE) instanceof QueryStats stats)) {
+            return;
+        }
+        stats.end();
+        boolean overStatements = maxStatements > 0 && stats.getStatements() > maxStatements;
+        boolean overTime = maxDbMillis > 0 && stats.getDbMillis() > maxDbMillis;
+        if (overStatements || overTime) {
+            log.warn(request.getMethod() + " " + request.getRequestURI() + " превысил бюджет запросов к БД ("
+                    + maxStatements + " запросов, " + maxDbMillis + " мс): " + stats);
+            if (log.isDebugEnabled()) {
+                log.debug("Запросы: " + String.join("\n", stats.getSql()));
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.jonyshev.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Счётчики SQL в рамках одного HTTP-запроса (или теста): число выполненных statement-ов, прочитанные строки
+ * и время в базе. Заполняется {@link InstrumentedDataSource} для scope, привязанного к текущему потоку.
+ * Scope-ы вкладываются: всё, что посчитано во вложенном, учитывается и во внешнем.
+ */
+public final class QueryStats {
+
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+    private static final int MAX_SQL = 50;
+
+    private final QueryStats parent;
+    private final AtomicInteger statements = new AtomicInteger();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+    private final List<String> sql = new ArrayList<>();
+
+    private QueryStats(QueryStats parent) {
+        this.parent = parent;
+    }
+
+    public static QueryStats start() {
+        QueryStats stats = new QueryStats(CURRENT.get());
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    public static QueryStats current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Выполняет задачу в другом потоке с тем же scope, что и у вызывающего (например, при параллельных запросах).
+     */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        QueryStats stats = CURRENT.get();
+        if (stats == null) {
+            return task;
+        }
+        return () -> {
+            QueryStats previous = CURRENT.get();
+            CURRENT.set(stats);
+            try {
+                return task.call();
+            } finally {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    public void end() {
+        if (CURRENT.get() == this) {
+            CURRENT.set(parent);
+        }
+    }
+
+    void recordStatement(String statement, long elapsedNanos) {
+        for (QueryStats stats = this; stats != null; stats = stats.parent) {
+            stats.statements.incrementAndGet();
+            stats.nanos.add(elapsedNanos);
+            if (statement != null) {
+                synchronized (stats.sql) {
+                    if (stats.sql.size() < MAX_SQL) {
+                        stats.sql.add(statement);
+                    }
+                }
+            }
+        }
+    }
+
+    void recordFetch(int fetched, long elapsedNanos) {
+        for (QueryStats stats = this; stats != null; stats = stats.parent) {
+            stats.rows.add(fetched);
+            stats.nanos.add(elapsedNanos);
+        }
+    }
+
+    public int getStatements() {
+        return statements.get();
+    }
+
+    public long getRows() {
+        return rows.sum();
+    }
+
+    public double getDbMillis() {
+        return (double) nanos.sum() / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Первые {@value #MAX_SQL} выполненных запросов - для сообщений о превышении бюджета.
+     */
+    public List<String> getSql() {
+        synchronized (sql) {
+            return List.copyOf(sql);
+        }
+    }
+
+    public String toServerTiming() {
+        return String.format(Locale.ROOT, "db;dur=%.1f;desc=\"%d queries, %d rows\"",
+                getDbMillis(), getStatements(), getRows());
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%d запросов, %d строк, %.1f мс в БД", getStatements(), getRows(), getDbMillis());
+    }
+}
@@ -0,0 +1,31 @@
+package com.jonyshev.config;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Вызов метода PostRepository или CommentRepository: выполненный SQL, число statement-ов и прочитанных строк.
+ */
+@Name("myblog.RepositoryCall")
+@Label("Repository Call")
+@Category({"MyBlog", "Database"})
+@Description("Вызов метода репозитория и выполненные им запросы")
+@StackTrace(false)
+public class RepositoryCallEvent extends Event {
+
+    @Label("Method")
+    public String method;
+
+    @Label("SQL")
+    public String sql;
+
+    @Label("Statements")
+    public int statements;
+
+    @Label("Rows")
+    public long rows;
+}
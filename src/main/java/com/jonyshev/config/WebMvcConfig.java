@@ -4,24 +4,36 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.multipart.MultipartResolver;
-import org.springframework.web.multipart.support.StandardServletMultipartResolver;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import org.thymeleaf.spring6.SpringTemplateEngine;
 import org.thymeleaf.spring6.templateresolver.SpringResourceTemplateResolver;
 import org.thymeleaf.spring6.view.ThymeleafViewResolver;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
 @Configuration
 @EnableWebMvc
 public class WebMvcConfig implements WebMvcConfigurer {
 
+    private static final CacheControl IMAGE_CACHE_CONTROL = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
+
     private final ApplicationContext applicationContext;
+    private final Environment environment;
 
     @Autowired
-    public WebMvcConfig(ApplicationContext applicationContext) {
+    public WebMvcConfig(ApplicationContext applicationContext, Environment environment) {
         this.applicationContext = applicationContext;
+        this.environment = environment;
     }
 
     @Bean
@@ -31,7 +43,8 @@ public class WebMvcConfig implements WebMvcConfigurer {
         templateResolver.setPrefix("/WEB-INF/templates/");
         templateResolver.setSuffix(".html");
         templateResolver.setCharacterEncoding("UTF-8");
-        templateResolver.setCacheable(false);
+        // С профилем dev шаблоны перечитываются на каждый запрос, иначе разбираются один раз
+        templateResolver.setCacheable(!environment.acceptsProfiles(Profiles.of("dev")));
         return templateResolver;
     }
 
@@ -51,14 +64,31 @@ public class WebMvcConfig implements WebMvcConfigurer {
         return resolver;
     }
 
-    @Bean
-    public MultipartResolver multipartResolver() {
-        return new StandardServletMultipartResolver();
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new QueryBudgetInterceptor(
+                environment.getProperty("queries.budget.statements", Integer.class, 0),
+                environment.getProperty("queries.budget.db-ms", Long.class, 0L)));
+        registry.addInterceptor(new FlightRecorderInterceptor());
     }
 
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        registry.addResourceHandler("/uploads/**")
-                .addResourceLocations("file:" + System.getProperty("user.dir") + "/uploads/");
+        registry.addResourceHandler("/images/**", "/uploads/**")
+                .addResourceLocations("file:" + System.getProperty("user.dir") + "/uploads/")
+                .setCacheControl(IMAGE_CACHE_CONTROL)
+                .setUseLastModified(true)
+                .setEtagGenerator(WebMvcConfig::imageEtag);
+    }
+
+    // Загруженные файлы не перезаписываются (новые называются по SHA-256 содержимого, старые - с UUID-префиксом),
+    // поэтому сильный ETag строится по метаданным файла без чтения содержимого
+    private static String imageEtag(Resource resource) {
+        try {
+            String key = resource.getFilename() + ":" + resource.contentLength() + ":" + resource.lastModified();
+            return DigestUtils.md5DigestAsHex(key.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            return null;
+        }
     }
 }
@@ -0,0 +1,67 @@
+package com.jonyshev.controller;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.jonyshev.config.PoolMetrics;
+import com.jonyshev.config.SlowQueryLog;
+import com.jonyshev.service.PostCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+@Controller
+public class AdminController {
+    private final PoolMetrics poolMetrics;
+    private final PostCache postCache;
+    private final SlowQueryLog slowQueryLog;
+
+    @Autowired
+    public AdminController(PoolMetrics poolMetrics, PostCache postCache, SlowQueryLog slowQueryLog) {
+        this.poolMetrics = poolMetrics;
+        this.postCache = postCache;
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    @GetMapping(value = "/admin/pool", produces = MediaType.TEXT_PLAIN_VALUE)
+    @ResponseBody
+    public String getPoolMetrics() {
+        return "active " + poolMetrics.getActiveConnections() + "\n" +
+                "idle " + poolMetrics.getIdleConnections() + "\n" +
+                "total " + poolMetrics.getTotalConnections() + "\n" +
+                "pending " + poolMetrics.getPendingThreads() + "\n" +
+                "acquire_count " + poolMetrics.getAcquireCount() + "\n" +
+                "acquire_avg_ms " + poolMetrics.getAverageAcquireMillis() + "\n" +
+                "acquire_max_ms " + poolMetrics.getMaxAcquireMillis() + "\n" +
+                "timeouts " + poolMetrics.getTimeouts() + "\n";
+    }
+
+    @GetMapping(value = "/admin/cache", produces = MediaType.TEXT_PLAIN_VALUE)
+    @ResponseBody
+    public String getCacheStats() {
+        CacheStats stats = postCache.stats();
+        return "size " + postCache.size() + "\n" +
+                "hits " + stats.hitCount() + "\n" +
+                "misses " + stats.missCount() + "\n" +
+                "hit_rate " + stats.hitRate() + "\n" +
+                "evictions " + stats.evictionCount() + "\n" +
+                "load_avg_ms " + stats.averageLoadPenalty() / 1_000_000.0 + "\n";
+    }
+
+    @GetMapping(value = "/admin/slow-queries", produces = MediaType.TEXT_PLAIN_VALUE)
+    @ResponseBody
+    public String getSlowQueries() {
+        StringBuilder out = new StringBuilder();
+        for (SlowQueryLog.Entry entry : slowQueryLog.recent()) {
+            out.append('#').append(entry.id()).append(' ').append(entry.time())
+                    .append(' ').append(entry.millis()).append(" ms ").append(entry.caller()).append('\n')
+                    .append(entry.sql()).append('\n')
+                    .append("params ").append(entry.params()).append('\n');
+            if (entry.plan() != null) {
+                out.append(entry.plan());
+            }
+            out.append('\n');
+        }
+        return out.toString();
+    }
+}
@@ -1,32 +1,56 @@
 package com.jonyshev.controller;
 
+import com.jonyshev.model.Comment;
+import com.jonyshev.model.CommentPage;
+import com.jonyshev.model.PageCursor;
 import com.jonyshev.model.Paging;
 import com.jonyshev.model.Post;
+import com.jonyshev.model.PostSlice;
+import com.jonyshev.model.PostSummary;
 import com.jonyshev.service.PostService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.apache.commons.fileupload2.core.DiskFileItem;
+import org.apache.commons.fileupload2.core.DiskFileItemFactory;
+import org.apache.commons.fileupload2.core.FileItemInput;
+import org.apache.commons.fileupload2.core.FileItemInputIterator;
+import org.apache.commons.fileupload2.core.FileUploadException;
+import org.apache.commons.fileupload2.core.FileUploadSizeException;
+import org.apache.commons.fileupload2.jakarta.servlet6.JakartaServletFileUpload;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.ResponseEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Controller
 public class PostController {
+    private static final int COMMENTS_PAGE_SIZE = 20;
+
     private final PostService postService;
+    private final JakartaServletFileUpload<DiskFileItem, DiskFileItemFactory> upload = new JakartaServletFileUpload<>();
 
+    /**
+     * @param maxFormBytes предел всего тела формы поста; сама картинка ограничена images.max-bytes в ImageStorage
+     */
     @Autowired
-    public PostController(PostService postService) {
+    public PostController(PostService postService, @Value("${posts.max-form-bytes:6291456}") long maxFormBytes) {
         this.postService = postService;
+        upload.setMaxSize(maxFormBytes);
     }
 
     @GetMapping("/")
@@ -39,29 +63,65 @@ public class PostController {
             @RequestParam(required = false, defaultValue = "") String search,
             @RequestParam(required = false, defaultValue = "10") int pageSize,
             @RequestParam(required = false, defaultValue = "1") int pageNumber,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false, defaultValue = "false") boolean withTotal,
             Model model) {
-        List<Post> posts = postService.getAllPosts(search, pageSize, pageNumber);
-        int totalPosts = postService.countPosts(search);
+        int size = Paging.normalizePageSize(pageSize);
+        Long afterId = PageCursor.decode(after);
+        Long beforeId = PageCursor.decode(before);
+        if (afterId == null && beforeId == null && pageNumber > Paging.MAX_OFFSET_PAGE) {
+            return "redirect:" + UriComponentsBuilder.fromPath("/posts")
+                    .queryParamIfPresent("search", Optional.of(search).filter(s -> !s.isBlank()))
+                    .queryParam("pageSize", size)
+                    .encode()
+                    .toUriString();
+        }
 
-        boolean hasNext = (pageSize * pageNumber) < totalPosts;
-        boolean hasPrevious = pageNumber > 1;
+        PostSlice slice = afterId == null && beforeId == null && pageNumber > 1
+                ? postService.getAllPosts(search, size, pageNumber)
+                : postService.getPostsPage(search, afterId, beforeId, size);
+        List<PostSummary> posts = slice.posts();
+
+        // Пустая страница (курсор ушёл за край ленты после удалений) ведёт обратно от самого курсора
+        String nextCursor = !slice.hasNext() ? null
+                : !posts.isEmpty() ? PageCursor.encode(posts.get(posts.size() - 1).id())
+                : beforeId != null ? PageCursor.encode(beforeId + 1) : null;
+        String previousCursor = !slice.hasPrevious() ? null
+                : !posts.isEmpty() ? PageCursor.encode(posts.get(0).id())
+                : afterId != null ? PageCursor.encode(afterId - 1) : null;
+        boolean hasPrevious = slice.hasPrevious() && (previousCursor != null || pageNumber > 1);
+        Integer totalCount = withTotal ? postService.countPosts(search) : null;
 
         model.addAttribute("posts", posts);
         model.addAttribute("search", search);
-        model.addAttribute("paging", new Paging(pageNumber, pageSize, hasNext, hasPrevious));
+        model.addAttribute("paging", new Paging(Math.max(pageNumber, 1), size, nextCursor != null, hasPrevious,
+                nextCursor, previousCursor, totalCount));
         return "posts";
     }
 
     @GetMapping("posts/{id}")
-    public String getPostById(@PathVariable Long id, Model model) {
+    public String getPostById(@PathVariable Long id,
+                              @RequestParam(required = false, defaultValue = "false") boolean newestFirst,
+                              Model model) {
         return postService.getPostById(id)
                 .map(post -> {
                     model.addAttribute("post", post);
+                    addComments(model, id, null, newestFirst);
                     return "post";
                 })
                 .orElse("redirect:/posts");
     }
 
+    @GetMapping("/posts/{id}/comments")
+    public String getComments(@PathVariable Long id,
+                              @RequestParam(required = false) String after,
+                              @RequestParam(required = false, defaultValue = "false") boolean newestFirst,
+                              Model model) {
+        addComments(model, id, PageCursor.decode(after), newestFirst);
+        return "post :: comments";
+    }
+
     @GetMapping("/posts/add")
     public String showAddPostForm(Model model) {
         model.addAttribute("post", null);
@@ -69,30 +129,12 @@ public class PostController {
     }
 
     @PostMapping("/posts")
-    public String createPost(
-            @RequestParam String title,
-            @RequestParam String text,
-            @RequestParam(required = false) String tags,
-            @RequestParam(required = false) MultipartFile image) {
-        Long id = postService.createPost(title, text, tags, image);
+    public String createPost(HttpServletRequest request) throws IOException {
+        PostForm form = readForm(request);
+        Long id = postService.createPost(form.title(), form.text(), form.tags(), form.imageName());
         return "redirect:/posts/" + id;
     }
 
-    @GetMapping("/images/{fileName}")
-    public ResponseEntity<byte[]> getImage(@PathVariable String fileName) {
-        Path imagePath = Paths.get("uploads", fileName);
-        try {
-            byte[] imageBytes = Files.readAllBytes(imagePath);
-
-            return ResponseEntity
-                    .ok()
-                    .header("Content-Type", detectContentType(fileName))
-                    .body(imageBytes);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-    }
-
     @PostMapping("/posts/{id}/like")
     public String likePost(@PathVariable Long id,
                            @RequestParam boolean like) {
@@ -114,13 +156,10 @@ public class PostController {
     }
 
     @PostMapping("/posts/{id}")
-    public String updatePost(
-            @PathVariable Long id,
-            @RequestParam String title,
-            @RequestParam String text,
-            @RequestParam(required = false) String tags,
-            @RequestParam(required = false) MultipartFile image) {
-        postService.updatePost(id, title, text, tags, image);
+    public String updatePost(@PathVariable Long id,
+                             HttpServletRequest request) throws IOException {
+        PostForm form = readForm(request);
+        postService.updatePost(id, form.title(), form.text(), form.tags(), form.imageName());
         return "redirect:/posts/" + id;
     }
 
@@ -152,17 +191,52 @@ public class PostController {
         return "redirect:/posts";
     }
 
-    private String detectContentType(String fileName) {
-        String lowerCaseFileName = fileName.toLowerCase();
-        if (lowerCaseFileName.endsWith(".png")) {
-            return "image/png";
-        } else if (lowerCaseFileName.endsWith(".jpeg") || lowerCaseFileName.endsWith(".jpg")) {
-            return "image/jpeg";
-        } else if (lowerCaseFileName.endsWith(".gif")) {
-            return "image/gif";
-        } else {
-            return "application/octet-stream";
+    private void addComments(Model model, Long postId, Long afterId, boolean newestFirst) {
+        CommentPage page = postService.getComments(postId, afterId, newestFirst, COMMENTS_PAGE_SIZE);
+        List<Comment> comments = page.comments();
+        model.addAttribute("postId", postId);
+        model.addAttribute("comments", comments);
+        model.addAttribute("newestFirst", newestFirst);
+        model.addAttribute("commentsCursor",
+                page.hasNext() ? PageCursor.encode(comments.get(comments.size() - 1).getId()) : null);
+    }
+
+    // Форма поста разбирается потоком в порядке частей: картинка пишется в uploads по мере чтения запроса,
+    // без буфера в памяти и временного файла контейнера (multipart-разбор контейнера выключен)
+    private PostForm readForm(HttpServletRequest request) throws IOException {
+        if (!JakartaServletFileUpload.isMultipartContent(request)) {
+            throw new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "Форма поста отправляется как multipart/form-data");
+        }
+        Map<String, String> fields = new HashMap<>();
+        String imageName = null;
+        try {
+            FileItemInputIterator items = upload.getItemIterator(request);
+            while (items.hasNext()) {
+                FileItemInput item = items.next();
+                try (InputStream in = item.getInputStream()) {
+                    if (item.isFormField()) {
+                        fields.put(item.getFieldName(), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+                    } else if (item.getFieldName().equals("image") && StringUtils.hasText(item.getName())) {
+                        imageName = postService.storeImage(in);
+                    }
+                }
+            }
+        } catch (FileUploadSizeException e) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, e.getMessage());
+        } catch (FileUploadException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
         }
+        return new PostForm(required(fields, "title"), required(fields, "text"), fields.get("tags"), imageName);
     }
 
+    private static String required(Map<String, String> fields, String name) {
+        String value = fields.get(name);
+        if (value == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Нет поля " + name);
+        }
+        return value;
+    }
+
+    private record PostForm(String title, String text, String tags, String imageName) {
+    }
 }
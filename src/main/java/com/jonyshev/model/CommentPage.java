@@ -0,0 +1,6 @@
+package com.jonyshev.model;
+
+import java.util.List;
+
+public record CommentPage(List<Comment> comments, boolean hasNext) {
+}
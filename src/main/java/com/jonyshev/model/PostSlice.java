@@ -0,0 +1,6 @@
+package com.jonyshev.model;
+
+import java.util.List;
+
+public record PostSlice(List<PostSummary> posts, boolean hasNext, boolean hasPrevious) {
+}
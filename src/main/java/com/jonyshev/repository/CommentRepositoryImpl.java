@@ -5,8 +5,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.PreparedStatement;
 import java.util.List;
+import java.util.function.ObjLongConsumer;
 
 @Repository
 public class CommentRepositoryImpl implements CommentRepository {
@@ -25,15 +28,27 @@ public class CommentRepositoryImpl implements CommentRepository {
 
     @Override
     public List<Comment> findByPostId(Long postId) {
-        String sql = "SELECT * FROM comments WHERE post_id = ? ORDER BY id";
+        String sql = "SELECT id, post_id, text FROM comments WHERE post_id = ? ORDER BY id";
         return jdbcTemplate.query(sql, commentRowMapper, postId);
     }
 
     @Override
+    public List<Comment> findPage(Long postId, Long afterId, boolean newestFirst, int limit) {
+        String sql = "SELECT id, post_id, text FROM comments WHERE post_id = ? " +
+                (afterId != null ? (newestFirst ? "AND id < ? " : "AND id > ? ") : "") +
+                "ORDER BY id " + (newestFirst ? "DESC" : "ASC") + " LIMIT ?";
+        Object[] params = afterId != null
+                ? new Object[]{postId, afterId, limit}
+                : new Object[]{postId, limit};
+        return jdbcTemplate.query(sql, commentRowMapper, params);
+    }
+
+    @Override
+    @Transactional
     public void save(Long postId, Comment comment) {
         String sql = "INSERT INTO comments (post_id, text) VALUES (?, ?)";
         jdbcTemplate.update(sql, postId, comment.getText());
-
+        jdbcTemplate.update("UPDATE posts SET comments_count = comments_count + 1 WHERE id = ?", postId);
     }
 
     @Override
@@ -43,8 +58,23 @@ public class CommentRepositoryImpl implements CommentRepository {
     }
 
     @Override
+    @Transactional
     public void delete(Long postId, Long commentId) {
         String sql = "DELETE FROM comments WHERE id = ? AND post_id = ?";
-        jdbcTemplate.update(sql, commentId, postId);
+        int deleted = jdbcTemplate.update(sql, commentId, postId);
+        if (deleted > 0) {
+            jdbcTemplate.update("UPDATE posts SET comments_count = comments_count - ? WHERE id = ?", deleted, postId);
+        }
+    }
+
+    @Override
+    public void forEachComment(ObjLongConsumer<Comment> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement("SELECT id, post_id, text FROM comments");
+            ps.setFetchSize(1000);
+            return ps;
+        }, rs -> {
+            consumer.accept(commentRowMapper.mapRow(rs, 0), rs.getLong("post_id"));
+        });
     }
 }
@@ -0,0 +1,18 @@
+package com.jonyshev.repository;
+
+import com.jonyshev.model.SearchHit;
+
+import java.util.List;
+
+public interface FullTextSearchRepository {
+
+    /**
+     * Начало и конец подсвеченного слова в {@link SearchHit#snippet()}, который возвращает {@link #search}.
+     */
+    char MARK_START = '\uE000';
+    char MARK_END = '\uE001';
+
+    boolean isSupported();
+
+    List<SearchHit> search(String query, long offset, int limit);
+}
@@ -0,0 +1,78 @@
+package com.jonyshev.repository;
+
+import com.jonyshev.model.SearchHit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Полнотекстовый поиск на PostgreSQL: posts.search_vector и comments.search_vector
+ * (generated-колонки с GIN-индексами из schema-postgresql.sql).
+ */
+@Repository
+public class FullTextSearchRepositoryImpl implements FullTextSearchRepository {
+
+    private static final String HEADLINE_OPTIONS = "StartSel=" + MARK_START + ", StopSel=" + MARK_END
+            + ", MaxWords=35, MinWords=15, ShortWord=2, MaxFragments=2";
+
+    private static final String SEARCH_SQL = """
+            WITH q AS (SELECT websearch_to_tsquery('russian', ?) AS query),
+            matches AS (
+                SELECT p.id AS post_id, ts_rank(p.search_vector, q.query) AS rank
+                FROM posts p, q
+                WHERE p.search_vector @@ q.query
+                UNION ALL
+                SELECT c.post_id, ts_rank(c.search_vector, q.query) * 0.5
+                FROM comments c, q
+                WHERE c.search_vector @@ q.query
+            ),
+            ranked AS (
+                SELECT post_id, SUM(rank) AS rank
+                FROM matches
+                GROUP BY post_id
+                ORDER BY rank DESC, post_id DESC
+                LIMIT ? OFFSET ?
+            )
+            SELECT p.id, p.title, ts_headline('russian', p.text, q.query, ?) AS snippet
+            FROM ranked r
+            JOIN posts p ON p.id = r.post_id
+            CROSS JOIN q
+            ORDER BY r.rank DESC, p.id DESC
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Boolean supported;
+
+    @Autowired
+    public FullTextSearchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public boolean isSupported() {
+        Boolean result = supported;
+        if (result == null) {
+            try {
+                result = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                        "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName()));
+            } catch (DataAccessException e) {
+                // База недоступна - ответ не запоминаем, иначе поиск до перезапуска останется на пустом индексе в памяти
+                return false;
+            }
+            supported = result;
+        }
+        return result;
+    }
+
+    @Override
+    public List<SearchHit> search(String query, long offset, int limit) {
+        return jdbcTemplate.query(SEARCH_SQL, (rs, rowNum) -> new SearchHit(
+                rs.getLong("id"),
+                rs.getString("title"),
+                rs.getString("snippet")), query, limit, offset, HEADLINE_OPTIONS);
+    }
+}
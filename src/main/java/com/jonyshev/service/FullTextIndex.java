@@ -0,0 +1,257 @@
+package com.jonyshev.service;
+
+import com.jonyshev.model.Comment;
+import com.jonyshev.model.Post;
+import com.jonyshev.repository.CommentRepository;
+import com.jonyshev.repository.FullTextSearchRepository;
+import com.jonyshev.repository.PostRepository;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Инвертированный индекс "слово -> посты" в памяти для баз без полнотекстового поиска (H2, тесты).
+ * На PostgreSQL не строится: там ищет {@link FullTextSearchRepository}.
+ * Слова запроса объединяются через И, слово с минусом исключает посты; морфологии нет.
+ */
+@Component
+public class FullTextIndex implements SmartInitializingSingleton {
+
+    static final float TITLE_WEIGHT = 3f;
+    static final float TEXT_WEIGHT = 1f;
+    static final float COMMENT_WEIGHT = 0.5f;
+
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+
+    private final PostRepository postRepository;
+    private final CommentRepository commentRepository;
+    private final FullTextSearchRepository searchRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Map<String, Map<Long, Float>> postings = new HashMap<>();
+    private Map<Long, Set<String>> termsByPost = new HashMap<>();
+    private volatile boolean ready;
+
+    @Autowired
+    public FullTextIndex(PostRepository postRepository, CommentRepository commentRepository,
+                         FullTextSearchRepository searchRepository) {
+        this.postRepository = postRepository;
+        this.commentRepository = commentRepository;
+        this.searchRepository = searchRepository;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (searchRepository.isSupported()) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (DataAccessException e) {
+            // Индекс остаётся выключенным, поиск отдаёт пустой результат
+            ready = false;
+        }
+    }
+
+    public void rebuild() {
+        Map<String, Map<Long, Float>> newPostings = new HashMap<>();
+        Map<Long, Set<String>> newTermsByPost = new HashMap<>();
+        postRepository.forEachPostText(post -> {
+            addText(newPostings, newTermsByPost, post.getId(), post.getTitle(), TITLE_WEIGHT);
+            addText(newPostings, newTermsByPost, post.getId(), post.getText(), TEXT_WEIGHT);
+        });
+        commentRepository.forEachComment((comment, postId) ->
+                addText(newPostings, newTermsByPost, postId, comment.getText(), COMMENT_WEIGHT));
+
+        lock.writeLock().lock();
+        try {
+            postings = newPostings;
+            termsByPost = newTermsByPost;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void index(Post post) {
+        if (!ready) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removePost(post.getId());
+            addText(postings, termsByPost, post.getId(), post.getTitle(), TITLE_WEIGHT);
+            addText(postings, termsByPost, post.getId(), post.getText(), TEXT_WEIGHT);
+            if (post.getComments() != null) {
+                for (Comment comment : post.getComments()) {
+                    addText(postings, termsByPost, post.getId(), comment.getText(), COMMENT_WEIGHT);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Перечитывает пост вместе с комментариями из базы, например после правки комментария.
+     */
+    public void reindex(long postId) {
+        if (!ready) {
+            return;
+        }
+        Optional<Post> post = postRepository.findById(postId);
+        if (post.isEmpty()) {
+            remove(postId);
+            return;
+        }
+        post.get().setComments(commentRepository.findByPostId(postId));
+        index(post.get());
+    }
+
+    public void remove(long postId) {
+        lock.writeLock().lock();
+        try {
+            removePost(postId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return id постов по убыванию релевантности (tf-idf с весами полей), при равенстве - новые выше
+     */
+    public long[] search(String query, long offset, int limit) {
+        Set<String> include = queryTerms(query, false);
+        Set<String> exclude = queryTerms(query, true);
+        if (include.isEmpty() || !ready) {
+            return new long[0];
+        }
+
+        List<ScoredPost> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            List<Map<Long, Float>> lists = new ArrayList<>();
+            for (String term : include) {
+                Map<Long, Float> postIds = postings.get(term);
+                if (postIds == null) {
+                    return new long[0];
+                }
+                lists.add(postIds);
+            }
+            lists.sort(Comparator.comparingInt(Map::size));
+            int total = termsByPost.size();
+
+            candidates:
+            for (Long postId : lists.get(0).keySet()) {
+                double score = 0;
+                for (Map<Long, Float> postIds : lists) {
+                    Float weight = postIds.get(postId);
+                    if (weight == null) {
+                        continue candidates;
+                    }
+                    score += Math.log1p(weight) * Math.log1p((double) total / postIds.size());
+                }
+                for (String term : exclude) {
+                    Map<Long, Float> postIds = postings.get(term);
+                    if (postIds != null && postIds.containsKey(postId)) {
+                        continue candidates;
+                    }
+                }
+                matches.add(new ScoredPost(postId, score));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return matches.stream()
+                .sorted(Comparator.comparingDouble(ScoredPost::score).reversed()
+                        .thenComparing(Comparator.comparingLong(ScoredPost::postId).reversed()))
+                .skip(offset)
+                .limit(limit)
+                .mapToLong(ScoredPost::postId)
+                .toArray();
+    }
+
+    /**
+     * Слова текста в том виде, в котором они лежат в индексе.
+     */
+    public static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        Matcher matcher = WORD.matcher(text);
+        while (matcher.find()) {
+            terms.add(normalize(matcher.group()));
+        }
+        return terms;
+    }
+
+    /**
+     * @param excluded true - слова с минусом, false - искомые слова
+     */
+    public static Set<String> queryTerms(String query, boolean excluded) {
+        Set<String> terms = new LinkedHashSet<>();
+        for (String token : query.trim().split("\\s+")) {
+            if (token.startsWith("-") == excluded) {
+                terms.addAll(terms(excluded ? token.substring(1) : token));
+            }
+        }
+        return terms;
+    }
+
+    static String normalize(String word) {
+        return word.toLowerCase(Locale.ROOT).replace('ё', 'е');
+    }
+
+    static Pattern wordPattern() {
+        return WORD;
+    }
+
+    private static void addText(Map<String, Map<Long, Float>> postings, Map<Long, Set<String>> termsByPost,
+                                long postId, String text, float weight) {
+        for (String term : terms(text)) {
+            postings.computeIfAbsent(term, t -> new HashMap<>()).merge(postId, weight, Float::sum);
+            termsByPost.computeIfAbsent(postId, id -> new HashSet<>()).add(term);
+        }
+    }
+
+    private void removePost(long postId) {
+        Set<String> terms = termsByPost.remove(postId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<Long, Float> postIds = postings.get(term);
+            if (postIds != null) {
+                postIds.remove(postId);
+                if (postIds.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private record ScoredPost(long postId, double score) {
+    }
+}
@@ -0,0 +1,263 @@
+package com.jonyshev.service;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Уменьшенные копии загруженных картинок: uploads/variants/{variant}/{имя файла}.
+ * Копии строятся в фоне на ограниченном пуле; пока копии нет, отдаётся оригинал.
+ */
+@Component
+public class ImageVariants implements SmartInitializingSingleton, DisposableBean {
+
+    public enum Variant {
+        THUMB("thumb", 300),
+        DETAIL("detail", 600);
+
+        private final String dirName;
+        private final int maxHeight;
+
+        Variant(String dirName, int maxHeight) {
+            this.dirName = dirName;
+            this.maxHeight = maxHeight;
+        }
+    }
+
+    private static final Log log = LogFactory.getLog(ImageVariants.class);
+    private static final int QUEUE_CAPACITY = 256;
+    // Сколько пикселей декодируем за раз: крупные картинки читаются с прореживанием, а не целиком
+    private static final long DECODE_PIXELS = 8_000_000;
+
+    private final Path uploadDir;
+    private final long maxPixels;
+    private final ThreadPoolExecutor executor;
+    private final Set<String> ready = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public ImageVariants(@Value("${images.variant-threads:2}") int threads,
+                         @Value("${images.max-pixels:50000000}") long maxPixels) {
+        this(Paths.get(System.getProperty("user.dir"), "uploads"), threads, maxPixels);
+    }
+
+    /**
+     * @param maxPixels картинки больше этого (по размерам из заголовка) не декодируются, для них отдаётся оригинал
+     */
+    ImageVariants(Path uploadDir, int threads, long maxPixels) {
+        this.uploadDir = uploadDir;
+        this.maxPixels = maxPixels;
+        // Очередь ограничена: лишние задачи отбрасываются и догоняются backfill'ом при следующем старте
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+            Thread thread = new Thread(runnable, "image-variants");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        generateAsync(this::backfill);
+    }
+
+    public void generateAsync(String imageName) {
+        generateAsync(() -> generate(imageName));
+    }
+
+    /**
+     * Достраивает недостающие копии для всех файлов в uploads/.
+     */
+    public void backfill() {
+        if (!Files.isDirectory(uploadDir)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(uploadDir, Files::isRegularFile)) {
+            for (Path file : files) {
+                generate(file.getFileName().toString());
+            }
+        } catch (IOException e) {
+            log.warn("Не удалось обойти каталог " + uploadDir, e);
+        }
+    }
+
+    public String src(String imageName, String variant) {
+        if (!StringUtils.hasText(imageName)) {
+            return null;
+        }
+        Variant type = Variant.valueOf(variant.toUpperCase(Locale.ROOT));
+        return contextPath() + (ready.contains(key(type, imageName))
+                ? "/uploads/variants/" + type.dirName + "/" + imageName
+                : "/uploads/" + imageName);
+    }
+
+    public String srcset(String imageName) {
+        if (!StringUtils.hasText(imageName)) {
+            return null;
+        }
+        return src(imageName, "thumb") + " 1x, " + src(imageName, "detail") + " 2x";
+    }
+
+    void generate(String imageName) {
+        Path original = uploadDir.resolve(imageName);
+        String format = StringUtils.getFilenameExtension(imageName);
+        if (format == null || !ImageIO.getImageWritersBySuffix(format).hasNext()) {
+            return;
+        }
+
+        List<Variant> missing = new ArrayList<>();
+        for (Variant variant : Variant.values()) {
+            if (Files.exists(variantPath(variant, imageName))) {
+                ready.add(key(variant, imageName));
+            } else {
+                missing.add(variant);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        try {
+            BufferedImage source = decode(original, imageName, missing);
+            if (source == null) {
+                return;
+            }
+            for (Variant variant : missing) {
+                write(resize(source, variant.maxHeight, format), format, variantPath(variant, imageName));
+                ready.add(key(variant, imageName));
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Не удалось построить копии для " + imageName, e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private void generateAsync(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            log.debug("Очередь построения копий заполнена, задача отброшена");
+        }
+    }
+
+    // Размеры берём из заголовка до декодирования: файл в несколько КБ может объявить 50000x50000 пикселей.
+    // Из missing убираются копии, которые не нужны: маленькие картинки не декодируются вовсе.
+    private BufferedImage decode(Path original, String imageName, List<Variant> missing) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(original.toFile())) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                // Не увеличиваем маленькие картинки - для них подходит оригинал
+                missing.removeIf(variant -> height <= variant.maxHeight);
+                if (missing.isEmpty()) {
+                    return null;
+                }
+                long pixels = (long) width * height;
+                if (pixels > maxPixels) {
+                    log.warn("Картинка " + imageName + " " + width + "x" + height + " больше " + maxPixels
+                            + " пикселей, копии не строятся");
+                    return null;
+                }
+                int subsampling = Math.max(Math.max(1, height / (Variant.DETAIL.maxHeight * 2)),
+                        (int) Math.ceil(Math.sqrt((double) pixels / DECODE_PIXELS)));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return read(reader, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    BufferedImage read(ImageReader reader, ImageReadParam param) throws IOException {
+        return reader.read(0, param);
+    }
+
+    private BufferedImage resize(BufferedImage source, int height, String format) {
+        int width = Math.max(1, (int) Math.round((double) source.getWidth() * height / source.getHeight()));
+        boolean keepAlpha = source.getColorModel().hasAlpha() && !isJpeg(format);
+        BufferedImage resized = new BufferedImage(width, height,
+                keepAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = resized.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return resized;
+    }
+
+    private void write(BufferedImage image, String format, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        // Пишем во временный файл и переименовываем, чтобы не отдать клиенту недописанную картинку
+        Path temp = Files.createTempFile(target.getParent(), ".variant-", ".tmp");
+        try {
+            if (!ImageIO.write(image, format, temp.toFile())) {
+                throw new IOException("Нет ImageIO writer для формата " + format);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private Path variantPath(Variant variant, String imageName) {
+        return uploadDir.resolve("variants").resolve(variant.dirName).resolve(imageName);
+    }
+
+    private static String key(Variant variant, String imageName) {
+        return variant.dirName + "/" + imageName;
+    }
+
+    private static boolean isJpeg(String format) {
+        return format.equalsIgnoreCase("jpg") || format.equalsIgnoreCase("jpeg");
+    }
+
+    private static String contextPath() {
+        return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                ? attributes.getRequest().getContextPath()
+                : "";
+    }
+}
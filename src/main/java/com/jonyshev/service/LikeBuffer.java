@@ -0,0 +1,86 @@
+package com.jonyshev.service;
+
+import com.jonyshev.repository.PostRepository;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Копит лайки в памяти и периодически сбрасывает их в базу одним батчем.
+ * Пока дельта не записана, она учитывается при показе счётчика.
+ */
+@Component
+public class LikeBuffer implements DisposableBean {
+
+    private final PostRepository postRepository;
+    private final PostCache postCache;
+    private final ConcurrentHashMap<Long, LongAdder> pending = new ConcurrentHashMap<>();
+
+    private volatile Map<Long, Long> inFlight = Map.of();
+
+    @Autowired
+    public LikeBuffer(PostRepository postRepository, PostCache postCache) {
+        this.postRepository = postRepository;
+        this.postCache = postCache;
+    }
+
+    public void add(long postId, long delta) {
+        LongAdder adder = pending.computeIfAbsent(postId, id -> new LongAdder());
+        adder.add(delta);
+        if (pending.get(postId) != adder) {
+            // Счётчик успели убрать при сбросе - переносим остаток в актуальный
+            long leftover = adder.sumThenReset();
+            if (leftover != 0) {
+                add(postId, leftover);
+            }
+        }
+    }
+
+    public long pending(long postId) {
+        LongAdder adder = pending.get(postId);
+        long delta = adder != null ? adder.sum() : 0;
+        return delta + inFlight.getOrDefault(postId, 0L);
+    }
+
+    @Scheduled(fixedDelayString = "${likes.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        Map<Long, Long> deltas = new HashMap<>();
+        pending.forEach((postId, adder) -> {
+            long delta = adder.sumThenReset();
+            if (delta != 0) {
+                deltas.put(postId, delta);
+            } else if (pending.remove(postId, adder)) {
+                long leftover = adder.sumThenReset();
+                if (leftover != 0) {
+                    deltas.put(postId, leftover);
+                }
+            }
+        });
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        inFlight = deltas;
+        try {
+            postRepository.applyLikeDeltas(deltas);
+            postCache.invalidateAll(deltas.keySet());
+        } catch (DataAccessException e) {
+            deltas.forEach(this::add);
+            throw e;
+        } finally {
+            inFlight = Map.of();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        flush();
+    }
+}
@@ -0,0 +1,67 @@
+package com.jonyshev.service;
+
+import com.jonyshev.model.Post;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Кэш постов вместе с комментариями по id. Наружу всегда отдаётся копия,
+ * чтобы изменения в сервисе не попадали в закэшированный объект.
+ */
+@Component
+public class PostCache {
+
+    private final Cache<Long, Post> cache;
+
+    @Autowired
+    public PostCache(@Value("${posts.cache.max-size:10000}") long maxSize,
+                     @Value("${posts.cache.ttl-seconds:600}") long ttlSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    public Optional<Post> get(Long id, Function<Long, Optional<Post>> loader) {
+        Post post = cache.get(id, key -> loader.apply(key).map(PostCache::snapshot).orElse(null));
+        return Optional.ofNullable(post).map(cached -> cached.toBuilder().build());
+    }
+
+    public void invalidate(Long id) {
+        cache.invalidate(id);
+    }
+
+    public void invalidateAll(Collection<Long> ids) {
+        cache.invalidateAll(ids);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private static Post snapshot(Post post) {
+        return post.toBuilder()
+                .tags(post.getTags() != null ? List.copyOf(post.getTags()) : null)
+                .comments(post.getComments() != null ? List.copyOf(post.getComments()) : null)
+                .build();
+    }
+}
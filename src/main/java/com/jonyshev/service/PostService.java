@@ -1,19 +1,38 @@
 package com.jonyshev.service;
 
+import com.jonyshev.model.CommentPage;
 import com.jonyshev.model.Post;
-import org.springframework.web.multipart.MultipartFile;
+import com.jonyshev.model.PostSlice;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Optional;
 
 public interface PostService {
-    List<Post> getAllPosts(String search, int pageSize, int pageNumber);
+    PostSlice getAllPosts(String search, int pageSize, int pageNumber);
+
+    PostSlice getPostsPage(String search, Long afterId, Long beforeId, int pageSize);
 
     Optional<Post> getPostById(Long id);
 
-    Long createPost(String title, String text, String tags, MultipartFile image);
+    CommentPage getComments(Long postId, Long afterId, boolean newestFirst, int pageSize);
+
+    /**
+     * Сохраняет картинку прямо из потока загрузки и ставит в очередь построение её уменьшенных копий.
+     *
+     * @return имя файла в каталоге uploads
+     */
+    String storeImage(InputStream in) throws IOException;
+
+    /**
+     * @param imageName имя файла из {@link #storeImage}, null - пост без картинки
+     */
+    Long createPost(String title, String text, String tags, String imageName);
 
-    void updatePost(Long id, String title, String text, String tags, MultipartFile image);
+    /**
+     * @param imageName имя файла из {@link #storeImage}, null - картинка поста не меняется
+     */
+    void updatePost(Long id, String title, String text, String tags, String imageName);
 
     void deletePost(Long id);
 
@@ -1,17 +1,19 @@
 package com.jonyshev.service;
 
 import com.jonyshev.model.Comment;
+import com.jonyshev.model.CommentPage;
+import com.jonyshev.model.Paging;
 import com.jonyshev.model.Post;
+import com.jonyshev.model.PostSlice;
+import com.jonyshev.model.PostSummary;
+import com.jonyshev.model.TagQuery;
 import com.jonyshev.repository.CommentRepository;
 import com.jonyshev.repository.PostRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.io.InputStream;
 import java.util.*;
 
 @Service
@@ -19,69 +21,147 @@ public class PostServiceImpl implements PostService {
 
     private final PostRepository postRepository;
     private final CommentRepository commentRepository;
+    private final TagIndex tagIndex;
+    private final LikeBuffer likeBuffer;
+    private final PostCounter postCounter;
+    private final ImageVariants imageVariants;
+    private final ImageStorage imageStorage;
+    private final PostCache postCache;
+    private final FullTextIndex fullTextIndex;
 
     @Autowired
-    public PostServiceImpl(PostRepository postRepository, CommentRepository commentRepository) {
+    public PostServiceImpl(PostRepository postRepository, CommentRepository commentRepository,
+                           TagIndex tagIndex, LikeBuffer likeBuffer, PostCounter postCounter,
+                           ImageVariants imageVariants, ImageStorage imageStorage, PostCache postCache, FullTextIndex fullTextIndex) {
         this.postRepository = postRepository;
         this.commentRepository = commentRepository;
+        this.tagIndex = tagIndex;
+        this.likeBuffer = likeBuffer;
+        this.postCounter = postCounter;
+        this.imageVariants = imageVariants;
+        this.imageStorage = imageStorage;
+        this.postCache = postCache;
+        this.fullTextIndex = fullTextIndex;
     }
 
 
     @Override
-    public List<Post> getAllPosts(String search, int pageSize, int pageNumber) {
-        List<Post> posts = postRepository.findAll(search, pageSize, pageNumber);
-        posts.forEach(post -> post.setComments(commentRepository.findByPostId(post.getId())));
-        return posts;
+    public PostSlice getAllPosts(String search, int pageSize, int pageNumber) {
+        int size = Paging.normalizePageSize(pageSize);
+        long offset = (long) (Math.max(pageNumber, 1) - 1) * size;
+        TagQuery query = TagQuery.parse(search);
+        // Лишняя строка показывает, есть ли следующая страница, без отдельного COUNT(*)
+        List<PostSummary> rows = useTagIndex(query)
+                ? postRepository.findSummariesByIds(tagIndex.slice(query, offset, size + 1))
+                : postRepository.findSlice(search, offset, size + 1);
+        boolean hasNext = rows.size() > size;
+        List<PostSummary> posts = withPendingLikes(hasNext ? rows.subList(0, size) : rows);
+        return new PostSlice(posts, hasNext, offset > 0);
+    }
+
+    @Override
+    public PostSlice getPostsPage(String search, Long afterId, Long beforeId, int pageSize) {
+        int size = Paging.normalizePageSize(pageSize);
+        TagQuery query = TagQuery.parse(search);
+        List<PostSummary> rows = useTagIndex(query)
+                ? postRepository.findSummariesByIds(tagIndex.page(query, afterId, beforeId, size + 1))
+                : postRepository.findPage(search, afterId, beforeId, size + 1);
+        boolean hasMore = rows.size() > size;
+        boolean backwards = beforeId != null && afterId == null;
+
+        List<PostSummary> posts;
+        if (!hasMore) {
+            posts = rows;
+        } else if (backwards) {
+            posts = rows.subList(1, rows.size());
+        } else {
+            posts = rows.subList(0, size);
+        }
+        posts = withPendingLikes(posts);
+
+        return backwards
+                ? new PostSlice(posts, true, hasMore)
+                : new PostSlice(posts, hasMore, afterId != null);
     }
 
     @Override
     public Optional<Post> getPostById(Long id) {
-        Optional<Post> optional = postRepository.findById(id);
-        optional.ifPresent(post -> post.setComments(commentRepository.findByPostId(id)));
+        // Комментарии не входят в пост: их отдаёт getComments постранично
+        Optional<Post> optional = postCache.get(id, postRepository::findById);
+        optional.ifPresent(this::applyPendingLikes);
         return optional;
     }
 
     @Override
-    public Long createPost(String title, String text, String tags, MultipartFile image) {
+    public CommentPage getComments(Long postId, Long afterId, boolean newestFirst, int pageSize) {
+        int size = Paging.normalizePageSize(pageSize);
+        List<Comment> rows = commentRepository.findPage(postId, afterId, newestFirst, size + 1);
+        boolean hasNext = rows.size() > size;
+        return new CommentPage(hasNext ? rows.subList(0, size) : rows, hasNext);
+    }
+
+    @Override
+    public String storeImage(InputStream in) throws IOException {
+        String imageName = imageStorage.store(in);
+        imageVariants.generateAsync(imageName);
+        return imageName;
+    }
+
+    @Override
+    public Long createPost(String title, String text, String tags, String imageName) {
         List<String> tagList = parseTags(tags);
-        String imagePath = saveImageFile(image);
 
         Post post = Post.builder()
                 .title(title)
                 .text(text)
                 .tags(tagList)
-                .imagePath(imagePath)
+                .imagePath(imageName)
                 .build();
 
-        return postRepository.save(post).getId();
+        postCounter.beforeChange();
+        Post saved = postRepository.save(post);
+        Long id = saved.getId();
+        postCounter.afterChange(1);
+        tagIndex.add(id, tagList);
+        fullTextIndex.index(saved);
+        return id;
     }
 
     @Override
-    public void updatePost(Long id, String title, String text, String tags, MultipartFile image) {
+    public void updatePost(Long id, String title, String text, String tags, String imageName) {
         Post post = getPostOrThrow(id);
+        List<String> oldTags = post.getTags();
         post.setTitle(title);
         post.setText(text);
         if (tags != null && !tags.isBlank()) {
             post.setTags(parseTags(tags));
         }
-        if (image != null && !image.isEmpty()) {
-            post.setImagePath(saveImageFile(image));
+        if (imageName != null) {
+            post.setImagePath(imageName);
         }
+        postCounter.beforeChange();
         postRepository.update(post);
+        postCache.invalidate(id);
+        postCounter.afterChange(0);
+        tagIndex.replace(id, oldTags, post.getTags());
+        fullTextIndex.reindex(id);
     }
 
     @Override
     public void deletePost(Long id) {
-        getPostOrThrow(id);
-        postRepository.deleteById(id);
+        Post post = getPostOrThrow(id);
+        postCounter.beforeChange();
+        int deleted = postRepository.deleteById(id);
+        postCache.invalidate(id);
+        // параллельное удаление того же поста уже уменьшило счётчик
+        postCounter.afterChange(deleted > 0 ? -1 : 0);
+        tagIndex.remove(id, post.getTags());
+        fullTextIndex.remove(id);
     }
 
     @Override
     public void likePost(Long id, boolean increase) {
-        Post post = getPostOrThrow(id);
-        int likes = post.getLikesCount();
-        post.setLikesCount(increase ? likes + 1 : Math.max(0, likes - 1));
-        postRepository.update(post);
+        likeBuffer.add(id, increase ? 1 : -1);
     }
 
     @Override
@@ -91,6 +171,8 @@ public class PostServiceImpl implements PostService {
                 .build();
 
         commentRepository.save(id, comment);
+        postCache.invalidate(id);
+        fullTextIndex.reindex(id);
     }
 
     @Override
@@ -101,39 +183,47 @@ public class PostServiceImpl implements PostService {
                 .build();
 
         commentRepository.update(id, comment);
+        postCache.invalidate(id);
+        fullTextIndex.reindex(id);
     }
 
     @Override
     public void deleteComment(Long id, Long commentId) {
         commentRepository.delete(id, commentId);
+        postCache.invalidate(id);
+        fullTextIndex.reindex(id);
     }
 
     @Override
     public int countPosts(String search) {
-        return postRepository.countPosts(search);
+        long count = postCounter.count(TagQuery.parse(search), query -> useTagIndex(query)
+                ? tagIndex.count(query)
+                : postRepository.countPosts(search));
+        return Math.toIntExact(count);
     }
 
 
-    private String saveImageFile(MultipartFile image) {
-        if (image == null || image.isEmpty()) {
-            return null;
-        }
-
-        try {
-            String imageName = UUID.randomUUID() + "_" + image.getOriginalFilename();
-            Path uploadDir = Paths.get(System.getProperty("user.dir"), "uploads");
-            Files.createDirectories(uploadDir); // Создаём, если не существует
+    private boolean useTagIndex(TagQuery query) {
+        return !query.isEmpty() && tagIndex.isReady();
+    }
 
-            Path pathToImage = uploadDir.resolve(imageName);
-            image.transferTo(pathToImage.toFile());
+    private List<PostSummary> withPendingLikes(List<PostSummary> posts) {
+        return posts.stream()
+                .map(post -> {
+                    long pending = likeBuffer.pending(post.id());
+                    return pending != 0 ? post.withLikesCount((int) Math.max(0, post.likesCount() + pending)) : post;
+                })
+                .toList();
+    }
 
-            return imageName;
-        } catch (IOException e) {
-            throw new RuntimeException("Не удалось сохранить файл", e);
+    private void applyPendingLikes(Post post) {
+        long pending = likeBuffer.pending(post.getId());
+        if (pending != 0) {
+            post.setLikesCount((int) Math.max(0, post.getLikesCount() + pending));
         }
     }
 
-    private List<String> parseTags(String tags) {
+    static List<String> parseTags(String tags) {
         if (tags == null || tags.isBlank()) {
             return List.of();
         }
@@ -144,6 +234,6 @@ public class PostServiceImpl implements PostService {
     }
 
     private Post getPostOrThrow(Long id) {
-        return postRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("Пост не найден"));
+        return getPostById(id).orElseThrow(() -> new IllegalArgumentException("Пост не найден"));
     }
 }
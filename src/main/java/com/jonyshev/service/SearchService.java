@@ -0,0 +1,7 @@
+package com.jonyshev.service;
+
+import com.jonyshev.model.SearchPage;
+
+public interface SearchService {
+    SearchPage search(String query, int pageSize, int pageNumber);
+}
@@ -0,0 +1,24 @@
+CREATE INDEX IF NOT EXISTS idx_post_tags_tag_pattern ON post_tags (tag varchar_pattern_ops, post_id);
+
+-- Перенос тегов из posts.tags выполняется один раз, дальше post_tags ведёт PostRepositoryImpl
+INSERT INTO post_tags (post_id, tag)
+SELECT DISTINCT p.id, LOWER(t.tag)
+FROM posts p, regexp_split_to_table(p.tags, '\s+') AS t(tag)
+WHERE t.tag <> '' AND NOT EXISTS (SELECT 1 FROM schema_migrations WHERE name = 'backfill_post_tags')
+ON CONFLICT DO NOTHING;
+
+INSERT INTO schema_migrations (name)
+SELECT 'backfill_post_tags' WHERE NOT EXISTS (SELECT 1 FROM schema_migrations WHERE name = 'backfill_post_tags');
+
+ALTER TABLE posts ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS (
+    setweight(to_tsvector('russian', coalesce(title, '')), 'A') ||
+    setweight(to_tsvector('russian', coalesce(text, '')), 'B')
+) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_posts_search_vector ON posts USING GIN (search_vector);
+
+ALTER TABLE comments ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS (
+    setweight(to_tsvector('russian', coalesce(text, '')), 'C')
+) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_comments_search_vector ON comments USING GIN (search_vector);
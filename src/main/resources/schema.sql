@@ -4,12 +4,42 @@ CREATE TABLE IF NOT EXISTS posts (
     text TEXT,
     image_path VARCHAR(255),
     tags TEXT,
-    likes_count INTEGER DEFAULT 0
+    likes_count INTEGER DEFAULT 0,
+    version BIGINT NOT NULL DEFAULT 0,
+    comments_count INTEGER NOT NULL DEFAULT 0
 );
 
+ALTER TABLE posts ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+ALTER TABLE posts ADD COLUMN IF NOT EXISTS comments_count INTEGER NOT NULL DEFAULT 0;
+
 CREATE TABLE IF NOT EXISTS comments (
     id BIGSERIAL PRIMARY KEY,
     post_id BIGINT NOT NULL,
     text TEXT,
     CONSTRAINT fk_comments_posts FOREIGN KEY (post_id) REFERENCES posts(id) ON DELETE CASCADE
-);
\ No newline at end of file
+);
+
+CREATE INDEX IF NOT EXISTS idx_comments_post_id ON comments (post_id, id);
+
+-- Разовые переносы данных: каждый выполняется, пока его имени нет в schema_migrations
+CREATE TABLE IF NOT EXISTS schema_migrations (
+    name VARCHAR(100) PRIMARY KEY
+);
+
+-- comments_count дальше ведёт CommentRepositoryImpl, пересчёт нужен только один раз после добавления колонки.
+-- Условие не зависит от строки: после отметки база проверяет его один раз и posts не читает
+UPDATE posts SET comments_count = (SELECT COUNT(*) FROM comments c WHERE c.post_id = posts.id)
+WHERE NOT EXISTS (SELECT 1 FROM schema_migrations WHERE name = 'backfill_comments_count');
+
+INSERT INTO schema_migrations (name)
+SELECT 'backfill_comments_count' WHERE NOT EXISTS (SELECT 1 FROM schema_migrations WHERE name = 'backfill_comments_count');
+
+CREATE TABLE IF NOT EXISTS post_tags (
+    post_id BIGINT NOT NULL,
+    tag VARCHAR(255) NOT NULL,
+    PRIMARY KEY (post_id, tag),
+    CONSTRAINT fk_post_tags_posts FOREIGN KEY (post_id) REFERENCES posts(id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_post_tags_tag ON post_tags (tag, post_id);
\ No newline at end of file
@@ -0,0 +1,123 @@
+package com.jonyshev.config;
+
+import com.jonyshev.repository.PostRepository;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static com.jonyshev.controller.PostFormRequest.postForm;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = {AppConfig.class, WebMvcConfig.class, TestJdbcConfig.class})
+@WebAppConfiguration
+class FlightRecorderEventsTest {
+
+    private static final Path UPLOAD_DIR = Paths.get(System.getProperty("user.dir"), "uploads");
+    private static final List<String> EVENTS = List.of(
+            "myblog.RepositoryCall", "myblog.ViewRender", "myblog.ImageUpload", "myblog.ImageServe");
+
+    @Autowired
+    private WebApplicationContext wac;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    private MockMvc mockMvc;
+    private Recording recording;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        mockMvc = MockMvcBuilders.webAppContextSetup(wac).build();
+        // Профиль из поставки, но без порогов - иначе быстрые вызовы в тесте отсекаются
+        recording = new Recording(Configuration.create(Paths.get("src/main/jfr/myblog.jfc")));
+        EVENTS.forEach(name -> recording.enable(name).withThreshold(Duration.ZERO));
+        recording.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        recording.close();
+    }
+
+    @Test
+    void requests_shouldEmitApplicationEvents() throws Exception {
+        //given
+        byte[] image = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 13};
+
+        //when
+        String location = mockMvc.perform(postForm("/posts", Map.of("title", "jfr", "text", "text"), "jfr.png", image))
+                .andExpect(status().is3xxRedirection())
+                .andReturn().getResponse().getRedirectedUrl();
+        String fileName = postRepository.findById(Long.valueOf(location.substring(location.lastIndexOf('/') + 1)))
+                .orElseThrow()
+                .getImagePath();
+        mockMvc.perform(get("/posts")).andExpect(status().isOk());
+        mockMvc.perform(get("/images/" + fileName)).andExpect(status().isOk());
+        List<RecordedEvent> events = stop();
+        Files.deleteIfExists(UPLOAD_DIR.resolve(fileName));
+
+        //then
+        RecordedEvent upload = find(events, "myblog.ImageUpload");
+        assertEquals(fileName, upload.getString("fileName"));
+        assertEquals(image.length, upload.getLong("bytes"));
+
+        RecordedEvent render = find(events, "myblog.ViewRender");
+        assertEquals("posts", render.getString("view"));
+        assertEquals("/posts", render.getString("uri"));
+        assertTrue(render.getInt("modelSize") > 0);
+
+        RecordedEvent repositoryCall = events.stream()
+                .filter(event -> event.getEventType().getName().equals("myblog.RepositoryCall"))
+                .filter(event -> event.getString("method").equals("PostRepository.save"))
+                .findFirst()
+                .orElseThrow();
+        assertTrue(repositoryCall.getInt("statements") > 0);
+        assertTrue(repositoryCall.getString("sql").contains("INSERT INTO posts"));
+
+        RecordedEvent serve = find(events, "myblog.ImageServe");
+        assertEquals("/images/" + fileName, serve.getString("uri"));
+        assertEquals(200, serve.getInt("status"));
+        assertEquals(image.length, serve.getLong("bytes"));
+    }
+
+    private List<RecordedEvent> stop() throws Exception {
+        recording.stop();
+        Path file = Files.createTempFile("myblog", ".jfr");
+        try {
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static RecordedEvent find(List<RecordedEvent> events, String name) {
+        return events.stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("Нет события " + name));
+    }
+}
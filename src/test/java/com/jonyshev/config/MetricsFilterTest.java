@@ -0,0 +1,71 @@
+package com.jonyshev.config;
+
+import com.jonyshev.service.PostService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = {AppConfig.class, WebMvcConfig.class, TestJdbcConfig.class})
+@WebAppConfiguration
+class MetricsFilterTest {
+
+    @Autowired
+    private WebApplicationContext wac;
+
+    @Autowired
+    private MetricsFilter metricsFilter;
+
+    @MockitoBean
+    private PostService postService;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(wac).addFilters(metricsFilter).build();
+    }
+
+    @Test
+    void scrape_shouldExposeHttpTimerByRoutePattern() throws Exception {
+        //given
+        when(postService.getPostById(404L)).thenReturn(Optional.empty());
+        mockMvc.perform(get("/posts/404")).andExpect(status().is3xxRedirection());
+
+        //when //then
+        mockMvc.perform(get(MetricsFilter.SCRAPE_PATH))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", startsWith("text/plain")))
+                .andExpect(content().string(containsString("http_server_requests_seconds_count{exception=\"none\",method=\"GET\",outcome=\"REDIRECTION\",status=\"302\",uri=\"/posts/{id}\"}")));
+    }
+
+    @Test
+    void scrape_shouldExposeLayerTimersWithHistogram() throws Exception {
+        //given
+        when(postService.getPostById(405L)).thenReturn(Optional.empty());
+        mockMvc.perform(get("/posts/405"));
+
+        //when //then
+        mockMvc.perform(get(MetricsFilter.SCRAPE_PATH))
+                .andExpect(content().string(containsString("myblog_calls_seconds_count{exception=\"none\",layer=\"controller\",operation=\"PostController.getPostById\",outcome=\"success\"}")))
+                .andExpect(content().string(containsString("myblog_calls_seconds_bucket{exception=\"none\",layer=\"controller\",operation=\"PostController.getPostById\",outcome=\"success\",le=\"0.025\"}")));
+    }
+}
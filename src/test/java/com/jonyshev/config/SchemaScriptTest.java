@@ -0,0 +1,45 @@
+package com.jonyshev.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * schema.sql выполняется при каждом старте: разовые переносы данных не должны повторяться.
+ */
+class SchemaScriptTest {
+
+    @Test
+    void schema_shouldBackfillCommentsCountOnlyOnce() {
+        //given
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:schema-script;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE posts (id IDENTITY PRIMARY KEY, title VARCHAR(255) NOT NULL, text TEXT, " +
+                "image_path VARCHAR(255), tags TEXT, likes_count INTEGER DEFAULT 0)");
+        jdbcTemplate.execute("CREATE TABLE comments (id IDENTITY PRIMARY KEY, post_id BIGINT NOT NULL, text TEXT)");
+        jdbcTemplate.update("INSERT INTO posts (id, title) VALUES (1, 'post')");
+        jdbcTemplate.update("INSERT INTO comments (post_id, text) VALUES (1, 'first'), (1, 'second')");
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource("schema.sql"));
+
+        //when
+        populator.execute(dataSource);
+        int backfilled = commentsCount(jdbcTemplate);
+        jdbcTemplate.update("UPDATE posts SET comments_count = 5 WHERE id = 1");
+        populator.execute(dataSource);
+
+        //then
+        assertEquals(2, backfilled);
+        assertEquals(5, commentsCount(jdbcTemplate));
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    private int commentsCount(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForObject("SELECT comments_count FROM posts WHERE id = 1", Integer.class);
+    }
+}
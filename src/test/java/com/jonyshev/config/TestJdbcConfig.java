@@ -19,7 +19,7 @@ public class TestJdbcConfig {
         dataSource.setUrl("jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE");
         dataSource.setUsername("sa");
         dataSource.setPassword("");
-        return dataSource;
+        return new InstrumentedDataSource(dataSource);
     }
 
     @Bean
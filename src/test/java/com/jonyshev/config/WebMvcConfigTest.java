@@ -0,0 +1,99 @@
+package com.jonyshev.config;
+
+import com.jonyshev.service.PostService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = {AppConfig.class, WebMvcConfig.class, TestJdbcConfig.class})
+@WebAppConfiguration
+class WebMvcConfigTest {
+
+    private static final Path UPLOAD_DIR = Paths.get(System.getProperty("user.dir"), "uploads");
+
+    @Autowired
+    private WebApplicationContext wac;
+
+    @MockitoBean
+    private PostService postService;
+
+    private MockMvc mockMvc;
+    private String fileName;
+    private final byte[] bytes = new byte[100];
+
+    @BeforeEach
+    void setUp() throws IOException {
+        mockMvc = MockMvcBuilders.webAppContextSetup(wac).build();
+        fileName = UUID.randomUUID() + "_image.png";
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        Files.createDirectories(UPLOAD_DIR);
+        Files.write(UPLOAD_DIR.resolve(fileName), bytes);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(UPLOAD_DIR.resolve(fileName));
+    }
+    @Test
+    void images_shouldBeServedWithLongCachingAndStrongEtag() throws Exception {
+        //when
+        MvcResult result = mockMvc.perform(get("/images/" + fileName))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.IMAGE_PNG))
+                .andExpect(content().bytes(bytes))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andReturn();
+
+        //then
+        String cacheControl = result.getResponse().getHeader(HttpHeaders.CACHE_CONTROL);
+        String etag = result.getResponse().getHeader(HttpHeaders.ETAG);
+        assertTrue(cacheControl.contains("max-age=31536000"));
+        assertTrue(cacheControl.contains("immutable"));
+        assertTrue(etag.startsWith("\""));
+    }
+
+    @Test
+    void images_shouldReturnNotModified_whenEtagMatches() throws Exception {
+        //given
+        String etag = mockMvc.perform(get("/uploads/" + fileName))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        //then
+        mockMvc.perform(get("/images/" + fileName).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void images_shouldServeByteRanges() throws Exception {
+        mockMvc.perform(get("/images/" + fileName).header(HttpHeaders.RANGE, "bytes=10-19"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 10-19/100"))
+                .andExpect(content().bytes(Arrays.copyOfRange(bytes, 10, 20)));
+    }
+}
@@ -0,0 +1,75 @@
+package com.jonyshev.controller;
+
+import com.jonyshev.config.AppConfig;
+import com.jonyshev.config.SlowQueryLog;
+import com.jonyshev.config.TestJdbcConfig;
+import com.jonyshev.config.WebMvcConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = {AppConfig.class, WebMvcConfig.class, TestJdbcConfig.class})
+@WebAppConfiguration
+class AdminControllerTest {
+
+    @Autowired
+    private WebApplicationContext wac;
+
+    @Autowired
+    private SlowQueryLog slowQueryLog;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(wac).build();
+    }
+
+    @Test
+    void getPoolMetrics_shouldReturnPoolState() throws Exception {
+        mockMvc.perform(get("/admin/pool"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("active ")))
+                .andExpect(content().string(containsString("pending ")))
+                .andExpect(content().string(containsString("acquire_avg_ms ")));
+    }
+
+    @Test
+    void getCacheStats_shouldReturnPostCacheCounters() throws Exception {
+        mockMvc.perform(get("/admin/cache"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("hits ")))
+                .andExpect(content().string(containsString("misses ")))
+                .andExpect(content().string(containsString("evictions ")));
+    }
+
+    @Test
+    void getSlowQueries_shouldReturnRecordedStatements() throws Exception {
+        //given
+        slowQueryLog.record("SELECT * FROM posts WHERE LOWER(tags) LIKE ?", Map.of(1, "%java%"),
+                TimeUnit.MILLISECONDS.toNanos(300), null);
+
+        //when //then
+        mockMvc.perform(get("/admin/slow-queries"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString(" 300.0 ms ")))
+                .andExpect(content().string(containsString("SELECT * FROM posts WHERE LOWER(tags) LIKE ?\n")))
+                .andExpect(content().string(containsString("params [%java%]")));
+    }
+}
@@ -0,0 +1,62 @@
+package com.jonyshev.controller;
+
+import com.jonyshev.config.AppConfig;
+import com.jonyshev.config.TestJdbcConfig;
+import com.jonyshev.config.WebMvcConfig;
+import com.jonyshev.model.PostSummary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = {AppConfig.class, WebMvcConfig.class, TestJdbcConfig.class})
+@WebAppConfiguration
+class PostCardRendererTest {
+
+    @Autowired
+    private PostCardRenderer postCardRenderer;
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void render_shouldReuseCardUntilPostChanges() {
+        //given
+        RequestContextHolder.setRequestAttributes(
+                new ServletRequestAttributes(new MockHttpServletRequest(), new MockHttpServletResponse()));
+        PostSummary post = new PostSummary(42L, "Заголовок", null, List.of("java"),
+                PostSummary.preview("первая\nвторая\nтретья\nчетвёртая"), 3, 0, 0);
+
+        //when
+        String first = postCardRenderer.render(post);
+        String cached = postCardRenderer.render(new PostSummary(42L, "Заголовок", null, List.of("java"),
+                post.textPreview(), 3, 0, 0));
+        String liked = postCardRenderer.render(post.withLikesCount(4));
+        String edited = postCardRenderer.render(new PostSummary(42L, "Заголовок", null, List.of("java"),
+                post.textPreview(), 4, 0, 1));
+
+        //then
+        assertSame(first, cached);
+        assertTrue(first.contains("Заголовок"));
+        assertTrue(first.contains("первая вторая третья"));
+        assertFalse(first.contains("четвёртая"));
+        assertTrue(first.contains("href=\"/posts/42\""));
+        assertTrue(first.contains("#java"));
+        assertTrue(liked.contains("4"));
+        assertNotSame(liked, edited);
+    }
+}
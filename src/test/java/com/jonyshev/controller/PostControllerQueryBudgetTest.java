@@ -0,0 +1,102 @@
+package com.jonyshev.controller;
+
+import com.jonyshev.config.AppConfig;
+import com.jonyshev.config.QueryStats;
+import com.jonyshev.config.TestJdbcConfig;
+import com.jonyshev.config.WebMvcConfig;
+import com.jonyshev.model.Comment;
+import com.jonyshev.model.Post;
+import com.jonyshev.repository.CommentRepository;
+import com.jonyshev.repository.PostRepository;
+import com.jonyshev.service.PostCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.List;
+
+import static com.jonyshev.config.QueryBudget.assertAtMost;
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Бюджеты запросов к БД для основных страниц: рост числа запросов (N+1, лишний count) ломает тест.
+ */
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = {AppConfig.class, WebMvcConfig.class, TestJdbcConfig.class})
+@WebAppConfiguration
+class PostControllerQueryBudgetTest {
+
+    @Autowired
+    private WebApplicationContext wac;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private PostCache postCache;
+
+    private MockMvc mockMvc;
+    private Long postId;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(wac).build();
+        postCache.invalidateAll();
+        for (int i = 0; i < 15; i++) {
+            Post post = postRepository.save(Post.builder()
+                    .title("title" + i)
+                    .text("text " + i)
+                    .tags(List.of("java", "tag" + i))
+                    .build());
+            postId = post.getId();
+            commentRepository.save(postId, Comment.builder().text("comment " + i).build());
+        }
+    }
+
+    @Test
+    void getAllPosts_shouldRunSingleQuery() {
+        assertAtMost(1, () -> mockMvc.perform(get("/posts"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Server-Timing", matchesPattern("db;dur=[\\d.]+;desc=\"1 queries, 11 rows\""))));
+    }
+
+    @Test
+    void getAllPostsWithTotal_shouldAddOnlyCountQuery() {
+        assertAtMost(2, () -> mockMvc.perform(get("/posts").param("withTotal", "true"))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void getPostById_shouldLoadPostAndCommentsOnly() {
+        //when
+        QueryStats first = assertAtMost(2, () -> mockMvc.perform(get("/posts/{id}", postId))
+                .andExpect(status().isOk()));
+        QueryStats cached = assertAtMost(1, () -> mockMvc.perform(get("/posts/{id}", postId))
+                .andExpect(status().isOk()));
+
+        //then
+        assertEquals(2, first.getStatements());
+        assertEquals(1, cached.getStatements());
+    }
+
+    @Test
+    void addComment_shouldStayWithinQueryBudget() {
+        assertAtMost(4, () -> mockMvc.perform(post("/posts/{id}/comments", postId).param("text", "new"))
+                .andExpect(status().is3xxRedirection()));
+    }
+}
@@ -0,0 +1,50 @@
+package com.jonyshev.controller;
+
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.FormHttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * POST формы поста с настоящим multipart-телом. PostController читает форму из тела запроса потоком,
+ * а MockMvcRequestBuilders.multipart кладёт части в запрос без тела.
+ */
+public final class PostFormRequest {
+
+    private PostFormRequest() {
+    }
+
+    /**
+     * @param image содержимое части image, null - форма без картинки
+     */
+    public static MockHttpServletRequestBuilder postForm(String url, Map<String, String> fields,
+                                                         String fileName, byte[] image) throws IOException {
+        MultiValueMap<String, Object> parts = new LinkedMultiValueMap<>();
+        fields.forEach(parts::add);
+        if (image != null) {
+            parts.add("image", new ByteArrayResource(image) {
+                @Override
+                public String getFilename() {
+                    return fileName;
+                }
+            });
+        }
+        MockHttpOutputMessage body = new MockHttpOutputMessage();
+        // Текстовые поля в UTF-8, как их отправляет браузер со страницы в UTF-8
+        FormHttpMessageConverter converter = new FormHttpMessageConverter();
+        converter.setCharset(StandardCharsets.UTF_8);
+        converter.write(parts, MediaType.MULTIPART_FORM_DATA, body);
+        return post(url)
+                .contentType(body.getHeaders().getContentType())
+                .content(body.getBodyAsBytes());
+    }
+}
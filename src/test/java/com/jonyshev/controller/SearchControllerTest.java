@@ -0,0 +1,59 @@
+package com.jonyshev.controller;
+
+import com.jonyshev.config.AppConfig;
+import com.jonyshev.config.TestJdbcConfig;
+import com.jonyshev.config.WebMvcConfig;
+import com.jonyshev.model.SearchHit;
+import com.jonyshev.model.SearchPage;
+import com.jonyshev.service.SearchService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = {AppConfig.class, WebMvcConfig.class, TestJdbcConfig.class})
+@WebAppConfiguration
+class SearchControllerTest {
+
+    @Autowired
+    private WebApplicationContext wac;
+
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private SearchService searchService;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(wac).build();
+    }
+
+    @Test
+    void search_shouldRenderHighlightedHitsAndNextPageLink() throws Exception {
+        //given
+        when(searchService.search("spring", 1, 1)).thenReturn(new SearchPage(
+                List.of(new SearchHit(7L, "Про <Spring>", "про <mark>Spring</mark>")), 1, 1, true));
+        //when //then
+        mockMvc.perform(get("/search").param("q", "spring").param("pageSize", "1"))
+                .andExpect(status().isOk())
+                .andExpect(view().name("search"))
+                .andExpect(content().string(containsString("Про &lt;Spring&gt;")))
+                .andExpect(content().string(containsString("про <mark>Spring</mark>")))
+                .andExpect(content().string(containsString("/search?q=spring&amp;pageSize=1&amp;pageNumber=2")));
+    }
+}
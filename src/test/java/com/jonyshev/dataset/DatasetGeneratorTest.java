@@ -0,0 +1,109 @@
+package com.jonyshev.dataset;
+
+import com.jonyshev.model.Post;
+import com.jonyshev.repository.PostRepositoryImpl;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DatasetGeneratorTest {
+
+    private final List<HikariDataSource> dataSources = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        dataSources.forEach(HikariDataSource::close);
+    }
+
+    @Test
+    void generate_shouldProduceSameRowsForSameSeed() throws Exception {
+        //given
+        JdbcTemplate first = database("dataset-a");
+        JdbcTemplate second = database("dataset-b");
+        JdbcTemplate other = database("dataset-c");
+
+        //when
+        generate(first, 7);
+        generate(second, 7);
+        generate(other, 8);
+
+        //then
+        assertEquals(fingerprint(first), fingerprint(second));
+        assertNotEquals(fingerprint(first), fingerprint(other));
+    }
+
+    @Test
+    void generate_shouldKeepCountersAndTagsConsistent() throws Exception {
+        //given
+        JdbcTemplate jdbcTemplate = database("dataset-consistency");
+
+        //when
+        DatasetGenerator.Result result = generate(jdbcTemplate, 42);
+
+        //then
+        assertEquals(result.posts(), jdbcTemplate.queryForObject("SELECT COUNT(*) FROM posts", Long.class));
+        assertEquals(result.comments(), jdbcTemplate.queryForObject("SELECT COUNT(*) FROM comments", Long.class));
+        assertEquals(result.tags(), jdbcTemplate.queryForObject("SELECT COUNT(*) FROM post_tags", Long.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM posts p " +
+                "WHERE comments_count <> (SELECT COUNT(*) FROM comments c WHERE c.post_id = p.id)", Integer.class));
+    }
+
+    @Test
+    void generate_shouldSkewTagPopularity() throws Exception {
+        //given
+        JdbcTemplate jdbcTemplate = database("dataset-skew");
+
+        //when
+        generate(jdbcTemplate, 42);
+
+        //then
+        List<Integer> popularity = jdbcTemplate.queryForList(
+                "SELECT COUNT(*) FROM post_tags GROUP BY tag ORDER BY COUNT(*) DESC", Integer.class);
+        assertTrue(popularity.get(0) > 10 * popularity.get(popularity.size() / 2));
+    }
+
+    @Test
+    void generate_shouldLeaveIdentityAfterGeneratedRows() throws Exception {
+        //given
+        JdbcTemplate jdbcTemplate = database("dataset-identity");
+        generate(jdbcTemplate, 42);
+
+        //when
+        Post saved = new PostRepositoryImpl(jdbcTemplate).save(
+                Post.builder().title("после генерации").text("text").tags(List.of()).build());
+
+        //then
+        assertEquals(501L, saved.getId());
+    }
+
+    private DatasetGenerator.Result generate(JdbcTemplate jdbcTemplate, long seed) throws Exception {
+        DatasetGenerator.Settings settings = new DatasetGenerator.Settings(500, seed, 200, 1.1, 6,
+                800, 0.9, 80, 1.3, 200, 1.1, 0.7, 128, false);
+        return new DatasetGenerator(jdbcTemplate.getDataSource(), settings).generate();
+    }
+
+    private JdbcTemplate database(String name) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSources.add(dataSource);
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        return new JdbcTemplate(dataSource);
+    }
+
+    private String fingerprint(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) || ':' || SUM(LENGTH(text)) || ':' || SUM(likes_count) " +
+                "|| ':' || STRING_AGG(tags, ',' ORDER BY id) FROM posts", String.class)
+                + jdbcTemplate.queryForObject("SELECT COUNT(*) || ':' || SUM(LENGTH(text)) FROM comments", String.class);
+    }
+}
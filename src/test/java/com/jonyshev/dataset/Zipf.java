@@ -0,0 +1,37 @@
+package com.jonyshev.dataset;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Распределение Ципфа на рангах 0..size-1: P(k) ~ 1 / (k + 1)^exponent.
+ * Функция распределения считается один раз, выборка - двоичным поиском.
+ */
+final class Zipf {
+
+    private final double[] cdf;
+
+    Zipf(int size, double exponent) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Размер распределения должен быть положительным");
+        }
+        cdf = new double[size];
+        double sum = 0;
+        for (int k = 0; k < size; k++) {
+            sum += 1 / Math.pow(k + 1, exponent);
+            cdf[k] = sum;
+        }
+        for (int k = 0; k < size; k++) {
+            cdf[k] /= sum;
+        }
+    }
+
+    int sample(RandomGenerator random) {
+        int index = Arrays.binarySearch(cdf, random.nextDouble());
+        return Math.min(index >= 0 ? index : -index - 1, cdf.length - 1);
+    }
+
+    int size() {
+        return cdf.length;
+    }
+}
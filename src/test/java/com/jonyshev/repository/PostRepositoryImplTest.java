@@ -1,7 +1,13 @@
 package com.jonyshev.repository;
 
+import com.jonyshev.config.InstrumentedDataSource;
+import com.jonyshev.config.SlowQueryLog;
 import com.jonyshev.config.TestJdbcConfig;
+import com.jonyshev.model.Comment;
 import com.jonyshev.model.Post;
+import com.jonyshev.model.PostSummary;
+import com.jonyshev.service.LikeBuffer;
+import com.jonyshev.service.PostCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -10,7 +16,10 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -26,6 +35,9 @@ class PostRepositoryImplTest {
     @Autowired
     private PostRepositoryImpl postRepository;
 
+    @Autowired
+    private CommentRepositoryImpl commentRepository;
+
 
     @BeforeEach
     void setUp() {
@@ -36,7 +48,27 @@ class PostRepositoryImplTest {
                     text TEXT,
                     image_path VARCHAR(255),
                     tags TEXT,
-                    likes_count INTEGER DEFAULT 0
+                    likes_count INTEGER DEFAULT 0,
+                    version BIGINT NOT NULL DEFAULT 0,
+                    comments_count INTEGER NOT NULL DEFAULT 0
+                );
+                """);
+
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS comments (
+                    id IDENTITY PRIMARY KEY,
+                    post_id BIGINT NOT NULL,
+                    text TEXT,
+                    CONSTRAINT fk_comments_posts FOREIGN KEY (post_id) REFERENCES posts(id) ON DELETE CASCADE
+                );
+                """);
+
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS post_tags (
+                    post_id BIGINT NOT NULL,
+                    tag VARCHAR(255) NOT NULL,
+                    PRIMARY KEY (post_id, tag),
+                    CONSTRAINT fk_post_tags_posts FOREIGN KEY (post_id) REFERENCES posts(id) ON DELETE CASCADE
                 );
                 """);
 
@@ -75,11 +107,149 @@ class PostRepositoryImplTest {
         postRepository.save(post3);
 
         //when
-        List<Post> posts = postRepository.findAll("java", 10, 1);
+        List<PostSummary> posts = postRepository.findSlice("java", 0, 10);
 
         //then
         assertEquals(2, posts.size());
-        assertTrue(posts.stream().allMatch(post -> post.getTags().contains("java")));
+        assertTrue(posts.stream().allMatch(post -> post.tags().contains("java")));
+    }
+
+    @Test
+    void findAll_shouldMatchWholeTagsOnly() {
+        //given
+        postRepository.save(Post.builder().title("java").text("text").tags(List.of("Java")).build());
+        postRepository.save(Post.builder().title("js").text("text").tags(List.of("javascript")).build());
+
+        //when
+        List<PostSummary> posts = postRepository.findSlice("java", 0, 10);
+
+        //then
+        assertEquals(List.of("java"), posts.stream().map(PostSummary::title).toList());
+        assertEquals(1, postRepository.countPosts("#JAVA"));
+    }
+
+    @Test
+    void findAll_shouldCombineTagsWithAndOrAndPrefix() {
+        //given
+        postRepository.save(Post.builder().title("spring").text("text").tags(List.of("java", "spring")).build());
+        postRepository.save(Post.builder().title("kotlin").text("text").tags(List.of("kotlin", "spring")).build());
+        postRepository.save(Post.builder().title("sql").text("text").tags(List.of("java", "sql")).build());
+        postRepository.save(Post.builder().title("js").text("text").tags(List.of("javascript")).build());
+
+        //when
+        List<String> javaAndSpring = summaryTitles(postRepository.findSlice("java spring", 0, 10));
+        List<String> kotlinOrSql = summaryTitles(postRepository.findSlice("kotlin|sql", 0, 10));
+        List<String> javaPrefix = summaryTitles(postRepository.findSlice("jav*", 0, 10));
+        List<String> prefixAndSpring = summaryTitles(postRepository.findSlice("jav*|kot* spring", 0, 10));
+
+        //then
+        assertEquals(List.of("spring"), javaAndSpring);
+        assertEquals(List.of("sql", "kotlin"), kotlinOrSql);
+        assertEquals(List.of("js", "sql", "spring"), javaPrefix);
+        assertEquals(List.of("kotlin", "spring"), prefixAndSpring);
+        assertEquals(3, postRepository.countPosts("jav*"));
+        assertEquals(1, postRepository.countPosts("java spring"));
+    }
+
+    @Test
+    void update_shouldReplacePostTags() {
+        //given
+        Post post = postRepository.save(Post.builder().title("title").text("text").tags(List.of("java")).build());
+
+        //when
+        post.setTags(List.of("kotlin"));
+        postRepository.update(post);
+
+        //then
+        assertEquals(0, postRepository.countPosts("java"));
+        assertEquals(1, postRepository.countPosts("kotlin"));
+    }
+
+    @Test
+    void findPage_shouldSeekByCursorInBothDirections() {
+        //given
+        List<Long> ids = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            ids.add(postRepository.save(Post.builder()
+                    .title("title" + i)
+                    .text("text" + i)
+                    .tags(List.of("java"))
+                    .build()).getId());
+        }
+
+        //when
+        List<PostSummary> firstPage = postRepository.findPage("", null, null, 2);
+        List<PostSummary> nextPage = postRepository.findPage("", firstPage.get(1).id(), null, 2);
+        List<PostSummary> previousPage = postRepository.findPage("", null, nextPage.get(0).id(), 2);
+
+        //then
+        assertEquals(List.of(ids.get(4), ids.get(3)), firstPage.stream().map(PostSummary::id).toList());
+        assertEquals(List.of(ids.get(2), ids.get(1)), nextPage.stream().map(PostSummary::id).toList());
+        assertEquals(List.of(ids.get(4), ids.get(3)), previousPage.stream().map(PostSummary::id).toList());
+    }
+
+    @Test
+    void findByIds_shouldReturnRequestedPostsNewestFirst() {
+        //given
+        Long first = postRepository.save(Post.builder().title("first").text("text").tags(List.of()).build()).getId();
+        postRepository.save(Post.builder().title("second").text("text").tags(List.of()).build());
+        Long third = postRepository.save(Post.builder().title("third").text("text").tags(List.of()).build()).getId();
+
+        //when
+        List<Post> posts = postRepository.findByIds(new long[]{first, third});
+
+        //then
+        assertEquals(List.of("third", "first"), titles(posts));
+        assertEquals(List.of("third", "first"), summaryTitles(postRepository.findSummariesByIds(new long[]{first, third})));
+        assertTrue(postRepository.findByIds(new long[0]).isEmpty());
+    }
+
+    @Test
+    void findSlice_shouldReturnPreviewAndStoredCommentsCountInsteadOfFullText() {
+        //given
+        String text = "первая\nвторая\n" + "длинная строка ".repeat(1000);
+        Long id = postRepository.save(Post.builder().title("title").text(text).imagePath("image.png")
+                .tags(List.of("java")).build()).getId();
+        commentRepository.save(id, Comment.builder().text("first").build());
+        commentRepository.save(id, Comment.builder().text("second").build());
+
+        //when
+        PostSummary summary = postRepository.findSlice("", 0, 10).get(0);
+
+        //then
+        assertEquals(id, summary.id());
+        assertEquals("image.png", summary.imagePath());
+        assertEquals(List.of("java"), summary.tags());
+        assertEquals(2, summary.commentsCount());
+        assertEquals(PostSummary.PREVIEW_LENGTH + "...".length(), summary.textPreview().length());
+        assertTrue(summary.textPreview().startsWith("первая вторая длинная строка"));
+    }
+
+    @Test
+    void forEachPostTags_shouldVisitEveryPost() {
+        //given
+        Long id = postRepository.save(Post.builder().title("title").text("text").tags(List.of("java", "sql")).build()).getId();
+        Map<Long, List<String>> tagsByPostId = new HashMap<>();
+
+        //when
+        postRepository.forEachPostTags((tags, postId) -> tagsByPostId.put(postId, tags));
+
+        //then
+        assertEquals(Map.of(id, List.of("java", "sql")), tagsByPostId);
+    }
+
+    @Test
+    void applyLikeDeltas_shouldAddDeltasAndNeverGoNegative() {
+        //given
+        Long first = postRepository.save(Post.builder().title("first").text("text").likesCount(2).tags(List.of()).build()).getId();
+        Long second = postRepository.save(Post.builder().title("second").text("text").likesCount(1).tags(List.of()).build()).getId();
+
+        //when
+        postRepository.applyLikeDeltas(Map.of(first, 5L, second, -3L));
+
+        //then
+        assertEquals(7, postRepository.findById(first).orElseThrow().getLikesCount());
+        assertEquals(0, postRepository.findById(second).orElseThrow().getLikesCount());
     }
 
     @Test
@@ -159,6 +329,26 @@ class PostRepositoryImplTest {
         assertEquals("updateText", post.getText());
     }
 
+    @Test
+    void update_shouldKeepLikesFlushedFromBuffer() {
+        //given
+        Long id = postRepository.save(Post.builder().title("title").text("text").likesCount(1).tags(List.of()).build()).getId();
+        Post edited = postRepository.findById(id).orElseThrow();
+        LikeBuffer likeBuffer = new LikeBuffer(postRepository, new PostCache(10, 60));
+        likeBuffer.add(id, 1);
+        likeBuffer.add(id, 1);
+        likeBuffer.flush();
+
+        //when
+        edited.setTitle("edited");
+        postRepository.update(edited);
+
+        //then
+        Post post = postRepository.findById(id).orElseThrow();
+        assertEquals("edited", post.getTitle());
+        assertEquals(3, post.getLikesCount());
+    }
+
     @Test
     void deleteById_shouldDeletePost_whenIdValid() {
         //given
@@ -181,25 +371,17 @@ class PostRepositoryImplTest {
     }
 
     @Test
-    void like_shouldDecreaseIncreaseLikes() {
+    void deleteById_shouldReturnZero_whenPostAlreadyDeleted() {
         //given
-        Post original = Post.builder()
-                .title("original")
-                .text("originalText")
-                .imagePath("originalPath")
-                .tags(List.of("originalTags"))
-                .likesCount(1)
-                .build();
-
-        Long id = postRepository.save(original).getId();
+        Long id = postRepository.save(Post.builder().title("title").text("text").tags(List.of()).build()).getId();
 
         //when
-        postRepository.like(id, true);
-        Post likedPost = postRepository.findById(id).orElseThrow();
+        int first = postRepository.deleteById(id);
+        int second = postRepository.deleteById(id);
 
         //then
-        assertEquals(2, likedPost.getLikesCount());
-
+        assertEquals(1, first);
+        assertEquals(0, second);
     }
 
     @Test
@@ -239,4 +421,35 @@ class PostRepositoryImplTest {
         assertEquals(1, springPosts);
         assertEquals(1, devopsPosts);
     }
+
+    @Test
+    void slowQueryLog_shouldAttributeStatementToRepositoryMethod() {
+        //given
+        SlowQueryLog slowQueryLog = new SlowQueryLog(1, 10, 0) {
+            @Override
+            public boolean isSlow(long elapsedNanos) {
+                return true;
+            }
+        };
+        PostRepositoryImpl logged = new PostRepositoryImpl(
+                new JdbcTemplate(new InstrumentedDataSource(jdbcTemplate.getDataSource(), slowQueryLog)));
+        Post saved = postRepository.save(Post.builder().title("slow").text("text").tags(List.of("sql")).build());
+
+        //when
+        logged.findById(saved.getId());
+
+        //then
+        SlowQueryLog.Entry entry = slowQueryLog.recent().get(0);
+        assertEquals("PostRepositoryImpl.findById", entry.caller());
+        assertEquals(List.of(String.valueOf(saved.getId())), entry.params());
+        slowQueryLog.close();
+    }
+
+    private List<String> titles(List<Post> posts) {
+        return posts.stream().map(Post::getTitle).toList();
+    }
+
+    private List<String> summaryTitles(List<PostSummary> posts) {
+        return posts.stream().map(PostSummary::title).toList();
+    }
 }
\ No newline at end of file
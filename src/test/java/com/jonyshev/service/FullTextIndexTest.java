@@ -0,0 +1,156 @@
+package com.jonyshev.service;
+
+import com.jonyshev.model.Comment;
+import com.jonyshev.model.Post;
+import com.jonyshev.repository.CommentRepository;
+import com.jonyshev.repository.FullTextSearchRepository;
+import com.jonyshev.repository.PostRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FullTextIndexTest {
+
+    @Mock
+    private PostRepository postRepository;
+
+    @Mock
+    private CommentRepository commentRepository;
+
+    @Mock
+    private FullTextSearchRepository searchRepository;
+
+    @InjectMocks
+    private FullTextIndex fullTextIndex;
+
+    @BeforeEach
+    void setUp() {
+        doAnswer(invocation -> {
+            Consumer<Post> consumer = invocation.getArgument(0);
+            consumer.accept(post(1L, "Spring Boot", "Автоконфигурация и стартеры"));
+            consumer.accept(post(2L, "Заметки", "Пишем сервисы на Spring и Kotlin"));
+            consumer.accept(post(3L, "Ёлка", "Новогодний пост без технологий"));
+            consumer.accept(post(4L, "Kotlin", "Корутины"));
+            return null;
+        }).when(postRepository).forEachPostText(any());
+        doAnswer(invocation -> {
+            ObjLongConsumer<Comment> consumer = invocation.getArgument(0);
+            consumer.accept(Comment.builder().id(10L).text("а где spring?").build(), 3L);
+            return null;
+        }).when(commentRepository).forEachComment(any());
+
+        fullTextIndex.afterSingletonsInstantiated();
+    }
+
+    @Test
+    void search_shouldRankTitleAboveTextAboveComments() {
+        assertTrue(fullTextIndex.isReady());
+        assertArrayEquals(new long[]{1L, 2L, 3L}, fullTextIndex.search("spring", 0, 10));
+    }
+
+    @Test
+    void search_shouldRequireAllWordsAndHonourExclusions() {
+        assertArrayEquals(new long[]{2L}, fullTextIndex.search("Spring kotlin", 0, 10));
+        assertArrayEquals(new long[]{1L, 3L}, fullTextIndex.search("spring -kotlin", 0, 10));
+        assertArrayEquals(new long[0], fullTextIndex.search("spring missing", 0, 10));
+        assertArrayEquals(new long[0], fullTextIndex.search("-spring", 0, 10));
+    }
+
+    @Test
+    void search_shouldNormalizeCaseAndYo() {
+        assertArrayEquals(new long[]{3L}, fullTextIndex.search("елка", 0, 10));
+    }
+
+    @Test
+    void search_shouldPaginate() {
+        assertArrayEquals(new long[]{2L}, fullTextIndex.search("spring", 1, 1));
+        assertArrayEquals(new long[0], fullTextIndex.search("spring", 3, 1));
+    }
+
+    @Test
+    void index_shouldReplacePreviousTerms() {
+        //when
+        fullTextIndex.index(Post.builder().id(4L).title("Spring").text("Теперь про другое").build());
+        //then
+        assertArrayEquals(new long[0], fullTextIndex.search("корутины", 0, 10));
+        assertArrayEquals(new long[]{4L, 1L, 2L, 3L}, fullTextIndex.search("spring", 0, 10));
+    }
+
+    @Test
+    void reindex_shouldPickUpCommentsFromRepository() {
+        //given
+        when(postRepository.findById(4L)).thenReturn(Optional.of(post(4L, "Kotlin", "Корутины")));
+        when(commentRepository.findByPostId(4L)).thenReturn(List.of(Comment.builder().id(11L).text("Flow").build()));
+        //when
+        fullTextIndex.reindex(4L);
+        //then
+        assertArrayEquals(new long[]{4L}, fullTextIndex.search("flow", 0, 10));
+    }
+
+    @Test
+    void remove_shouldDropPost() {
+        //when
+        fullTextIndex.remove(1L);
+        //then
+        assertArrayEquals(new long[]{2L, 3L}, fullTextIndex.search("spring", 0, 10));
+    }
+
+    @Test
+    void afterSingletonsInstantiated_shouldNotBuild_whenDatabaseSearchSupported() {
+        //given
+        FullTextIndex index = new FullTextIndex(postRepository, commentRepository, searchRepository);
+        when(searchRepository.isSupported()).thenReturn(true);
+        //when
+        index.afterSingletonsInstantiated();
+        //then
+        assertFalse(index.isReady());
+        verify(postRepository, never()).findById(any());
+    }
+
+    @Test
+    void snippet_shouldMarkMatchesAndEscapeHtml() {
+        //given
+        String text = "Начало <b>текста</b> про Spring и ещё раз spring.";
+        //when
+        String html = SearchHighlighter.toHtml(SearchHighlighter.snippet(text, Set.of("spring")));
+        //then
+        assertEquals("Начало &lt;b&gt;текста&lt;/b&gt; про <mark>Spring</mark> и ещё раз <mark>spring</mark>", html);
+    }
+
+    @Test
+    void snippet_shouldCutWindowAroundFirstMatch() {
+        //given
+        String text = "слово ".repeat(30) + "цель " + "хвост ".repeat(40);
+        //when
+        String snippet = SearchHighlighter.toHtml(SearchHighlighter.snippet(text, Set.of("цель")));
+        //then
+        assertTrue(snippet.startsWith("… слово"));
+        assertTrue(snippet.contains("<mark>цель</mark>"));
+        assertTrue(snippet.endsWith(" …"));
+        assertEquals(SearchHighlighter.SNIPPET_WORDS, snippet.replace("… ", "").replace(" …", "").split(" ").length);
+    }
+
+    private static Post post(long id, String title, String text) {
+        return Post.builder().id(id).title(title).text(text).build();
+    }
+}
@@ -0,0 +1,160 @@
+package com.jonyshev.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ImageVariantsTest {
+
+    private static final long MAX_PIXELS = 50_000_000;
+
+    @TempDir
+    private Path uploadDir;
+
+    private ImageVariants imageVariants;
+
+    @AfterEach
+    void tearDown() {
+        if (imageVariants != null) {
+            imageVariants.destroy();
+        }
+    }
+
+    @Test
+    void generate_shouldWriteResizedVariants_andSwitchSrcToThem() throws IOException {
+        //given
+        imageVariants = new ImageVariants(uploadDir, 1, MAX_PIXELS);
+        writeImage("big.png", 1000, 800);
+
+        //when
+        String before = imageVariants.src("big.png", "thumb");
+        imageVariants.generate("big.png");
+
+        //then
+        assertEquals("/uploads/big.png", before);
+        assertEquals(300, ImageIO.read(uploadDir.resolve("variants/thumb/big.png").toFile()).getHeight());
+        assertEquals(375, ImageIO.read(uploadDir.resolve("variants/thumb/big.png").toFile()).getWidth());
+        assertEquals(600, ImageIO.read(uploadDir.resolve("variants/detail/big.png").toFile()).getHeight());
+        assertEquals("/uploads/variants/thumb/big.png 1x, /uploads/variants/detail/big.png 2x",
+                imageVariants.srcset("big.png"));
+    }
+
+    @Test
+    void generate_shouldKeepOriginal_whenImageIsAlreadySmall() throws IOException {
+        //given
+        imageVariants = new ImageVariants(uploadDir, 1, MAX_PIXELS);
+        writeImage("small.png", 200, 100);
+
+        //when
+        imageVariants.generate("small.png");
+
+        //then
+        assertFalse(Files.exists(uploadDir.resolve("variants/thumb/small.png")));
+        assertEquals("/uploads/small.png", imageVariants.src("small.png", "thumb"));
+        assertNull(imageVariants.src(null, "thumb"));
+    }
+
+    @Test
+    void backfill_shouldPickUpExistingVariantsAndBuildMissingOnes() throws IOException {
+        //given
+        writeImage("first.png", 400, 400);
+        new ImageVariants(uploadDir, 1, MAX_PIXELS).generate("first.png");
+        writeImage("second.png", 400, 700);
+        imageVariants = new ImageVariants(uploadDir, 1, MAX_PIXELS);
+
+        //when
+        imageVariants.backfill();
+
+        //then
+        assertEquals("/uploads/variants/thumb/first.png", imageVariants.src("first.png", "thumb"));
+        assertEquals("/uploads/first.png", imageVariants.src("first.png", "detail"));
+        assertEquals("/uploads/variants/detail/second.png", imageVariants.src("second.png", "detail"));
+    }
+
+    @Test
+    void backfill_shouldNotDecodeImagesThatNeedNoVariant() throws IOException {
+        //given
+        AtomicInteger decodes = new AtomicInteger();
+        imageVariants = new ImageVariants(uploadDir, 1, MAX_PIXELS) {
+            @Override
+            BufferedImage read(ImageReader reader, ImageReadParam param) throws IOException {
+                decodes.incrementAndGet();
+                return super.read(reader, param);
+            }
+        };
+        writeImage("small.png", 200, 100);
+        writeImage("medium.png", 400, 400);
+
+        //when
+        imageVariants.backfill();
+        imageVariants.backfill();
+
+        //then
+        assertEquals(1, decodes.get());
+        assertEquals("/uploads/small.png", imageVariants.src("small.png", "thumb"));
+        assertEquals("/uploads/variants/thumb/medium.png", imageVariants.src("medium.png", "thumb"));
+        assertEquals("/uploads/medium.png", imageVariants.src("medium.png", "detail"));
+    }
+
+    @Test
+    void generate_shouldDecodeLargeImageWithSubsampling() throws IOException {
+        //given
+        imageVariants = new ImageVariants(uploadDir, 1, MAX_PIXELS);
+        writeImage("tall.png", 800, 2500);
+
+        //when
+        imageVariants.generate("tall.png");
+
+        //then
+        BufferedImage detail = ImageIO.read(uploadDir.resolve("variants/detail/tall.png").toFile());
+        assertEquals(600, detail.getHeight());
+        assertEquals(192, detail.getWidth());
+        assertEquals("/uploads/variants/thumb/tall.png", imageVariants.src("tall.png", "thumb"));
+    }
+
+    @Test
+    void generate_shouldSkipImage_whenHeaderDeclaresTooManyPixels() throws IOException {
+        //given
+        imageVariants = new ImageVariants(uploadDir, 1, MAX_PIXELS);
+        writeImage("bomb.png", 1, 1);
+        declarePngSize(uploadDir.resolve("bomb.png"), 20_000, 20_000);
+
+        //when
+        imageVariants.generate("bomb.png");
+
+        //then
+        assertFalse(Files.exists(uploadDir.resolve("variants/thumb/bomb.png")));
+        assertFalse(Files.exists(uploadDir.resolve("variants/detail/bomb.png")));
+        assertEquals("/uploads/bomb.png", imageVariants.src("bomb.png", "detail"));
+    }
+
+    private void writeImage(String name, int width, int height) throws IOException {
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", uploadDir.resolve(name).toFile());
+    }
+
+    // Подменяет ширину и высоту в IHDR и пересчитывает его CRC: файл остаётся крошечным, а заголовок - огромным
+    private static void declarePngSize(Path file, int width, int height) throws IOException {
+        byte[] png = Files.readAllBytes(file);
+        ByteBuffer buffer = ByteBuffer.wrap(png);
+        buffer.putInt(16, width).putInt(20, height);
+        CRC32 crc = new CRC32();
+        crc.update(png, 12, 17);
+        buffer.putInt(29, (int) crc.getValue());
+        Files.write(file, png);
+    }
+}
@@ -0,0 +1,107 @@
+package com.jonyshev.service;
+
+import com.jonyshev.repository.PostRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LikeBufferTest {
+
+    @Mock
+    private PostRepository postRepository;
+
+    @Mock
+    private PostCache postCache;
+
+    @InjectMocks
+    private LikeBuffer likeBuffer;
+
+    @Test
+    void flush_shouldWriteAccumulatedDeltasInOneBatch() {
+        //given
+        likeBuffer.add(1L, 1);
+        likeBuffer.add(1L, 1);
+        likeBuffer.add(2L, -1);
+        likeBuffer.add(3L, 1);
+        likeBuffer.add(3L, -1);
+
+        //when
+        likeBuffer.flush();
+
+        //then
+        verify(postRepository, times(1)).applyLikeDeltas(Map.of(1L, 2L, 2L, -1L));
+        verify(postCache, times(1)).invalidateAll(Set.of(1L, 2L));
+        assertEquals(0, likeBuffer.pending(1L));
+    }
+
+    @Test
+    void flush_shouldDoNothing_whenNoLikes() {
+        //when
+        likeBuffer.flush();
+
+        //then
+        verify(postRepository, never()).applyLikeDeltas(any());
+    }
+
+    @Test
+    void flush_shouldKeepDeltas_whenDatabaseFails() {
+        //given
+        likeBuffer.add(1L, 3);
+        doThrow(new DataAccessResourceFailureException("down")).when(postRepository).applyLikeDeltas(anyMap());
+
+        //when
+        assertThrows(DataAccessResourceFailureException.class, likeBuffer::flush);
+
+        //then
+        assertEquals(3, likeBuffer.pending(1L));
+    }
+
+    @Test
+    void add_shouldNotLoseLikes_whenFlushedConcurrently() throws InterruptedException {
+        //given
+        AtomicLong written = new AtomicLong();
+        doAnswer(invocation -> {
+            Map<Long, Long> deltas = invocation.getArgument(0);
+            deltas.values().forEach(written::addAndGet);
+            return null;
+        }).when(postRepository).applyLikeDeltas(anyMap());
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 4; i++) {
+            executor.submit(() -> {
+                for (int j = 0; j < 10_000; j++) {
+                    likeBuffer.add(j % 3, 1);
+                    if (j % 1_000 == 0) {
+                        likeBuffer.flush();
+                    }
+                }
+            });
+        }
+
+        //when
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        likeBuffer.destroy();
+
+        //then
+        assertEquals(40_000, written.get());
+    }
+}
@@ -0,0 +1,82 @@
+package com.jonyshev.service;
+
+import com.jonyshev.model.Comment;
+import com.jonyshev.model.Post;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PostCacheTest {
+
+    private final PostCache postCache = new PostCache(100, 60);
+
+    @Test
+    void get_shouldLoadOnceAndCountHitsAndMisses() {
+        //given
+        AtomicInteger loads = new AtomicInteger();
+
+        //when
+        for (int i = 0; i < 3; i++) {
+            postCache.get(1L, id -> {
+                loads.incrementAndGet();
+                return Optional.of(Post.builder().id(id).title("title").build());
+            });
+        }
+
+        //then
+        assertEquals(1, loads.get());
+        assertEquals(2, postCache.stats().hitCount());
+        assertEquals(1, postCache.stats().missCount());
+    }
+
+    @Test
+    void get_shouldReturnCopies_soCallersCannotChangeCachedPost() {
+        //given
+        List<Comment> comments = new ArrayList<>(List.of(Comment.builder().id(1L).text("text").build()));
+        postCache.get(1L, id -> Optional.of(Post.builder().id(id).title("title").likesCount(1).comments(comments).build()));
+
+        //when
+        Post copy = postCache.get(1L, id -> Optional.empty()).orElseThrow();
+        copy.setTitle("changed");
+        copy.setLikesCount(100);
+        comments.clear();
+
+        //then
+        Post cached = postCache.get(1L, id -> Optional.empty()).orElseThrow();
+        assertEquals("title", cached.getTitle());
+        assertEquals(1, cached.getLikesCount());
+        assertEquals(1, cached.getComments().size());
+    }
+
+    @Test
+    void invalidate_shouldForceReload_andMissingPostsAreNotCached() {
+        //given
+        AtomicInteger loads = new AtomicInteger();
+        postCache.get(1L, id -> Optional.of(Post.builder().id(id).build()));
+
+        //when
+        postCache.invalidate(1L);
+        postCache.get(1L, id -> {
+            loads.incrementAndGet();
+            return Optional.of(Post.builder().id(id).build());
+        });
+        Optional<Post> missing = postCache.get(2L, id -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        });
+        postCache.get(2L, id -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        });
+
+        //then
+        assertEquals(3, loads.get());
+        assertTrue(missing.isEmpty());
+    }
+}
@@ -1,21 +1,32 @@
 package com.jonyshev.service;
 
 import com.jonyshev.model.Comment;
+import com.jonyshev.model.CommentPage;
+import com.jonyshev.model.Paging;
 import com.jonyshev.model.Post;
+import com.jonyshev.model.PostSlice;
+import com.jonyshev.model.PostSummary;
+import com.jonyshev.model.TagQuery;
 import com.jonyshev.repository.CommentRepository;
 import com.jonyshev.repository.PostRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,6 +38,27 @@ class PostServiceImplTest {
     @Mock
     private CommentRepository commentRepository;
 
+    @Mock
+    private TagIndex tagIndex;
+
+    @Mock
+    private LikeBuffer likeBuffer;
+
+    @Mock
+    private ImageVariants imageVariants;
+
+    @Mock
+    private ImageStorage imageStorage;
+
+    @Mock
+    private FullTextIndex fullTextIndex;
+
+    @Spy
+    private PostCache postCache = new PostCache(100, 60);
+
+    @Spy
+    private PostCounter postCounter = new PostCounter();
+
     @InjectMocks
     private PostServiceImpl postService;
 
@@ -36,10 +68,6 @@ class PostServiceImplTest {
         String title = "title";
         String text = "text";
         String tags = "tags";
-        MultipartFile image = mock(MultipartFile.class);
-
-        when(image.isEmpty()).thenReturn(true);
-
         Post savedPost = Post.builder()
                 .id(1L)
                 .title(title)
@@ -51,9 +79,10 @@ class PostServiceImplTest {
         when(postRepository.save(any(Post.class))).thenReturn(savedPost);
 
         //when
-        Long id = postService.createPost(title, text, tags, image);
+        Long id = postService.createPost(title, text, tags, null);
         //then
         assertEquals(1L, id);
+        verify(fullTextIndex).index(savedPost);
         verify(postRepository, times(1)).save(argThat(post ->
                 post.getTitle().equals(title) &&
                         post.getText().equals(text) &&
@@ -61,10 +90,24 @@ class PostServiceImplTest {
         ));
     }
 
+    @Test
+    void storeImage_shouldStoreStreamAndScheduleVariants() throws IOException {
+        //given
+        InputStream in = new ByteArrayInputStream(new byte[]{1, 2, 3});
+        when(imageStorage.store(in)).thenReturn("abc.png");
+
+        //when
+        String imageName = postService.storeImage(in);
+
+        //then
+        assertEquals("abc.png", imageName);
+        verify(imageVariants).generateAsync("abc.png");
+    }
+
     @Test
     void updatePost_shouldUpdate_whenValid() {
         //given
-        //Long id, String title, String text, String tags, MultipartFile image
+        //Long id, String title, String text, String tags, String imageName
         Long id = 1L;
         String title = "title";
         String text = "title";
@@ -79,12 +122,8 @@ class PostServiceImplTest {
 
         when(postRepository.findById(id)).thenReturn(Optional.ofNullable(existingPost));
 
-        MultipartFile image = mock(MultipartFile.class);
-
-        when(image.isEmpty()).thenReturn(true);
-
         //when
-        postService.updatePost(id, title, text, tags, image);
+        postService.updatePost(id, title, text, tags, null);
 
         //then
         verify(postRepository, times(1)).update(argThat(post -> post.getId().equals(id) &&
@@ -108,25 +147,76 @@ class PostServiceImplTest {
 
         //then
         verify(postRepository, times(1)).deleteById(id);
+        verify(fullTextIndex).remove(id);
     }
 
     @Test
-    public void likePost_shouldUpdatePost_whenDataValid() {
+    public void deletePost_shouldNotDecrementTotal_whenPostAlreadyDeleted() {
         //given
         Long id = 1L;
-        int likesCount = 0;
-        boolean increase = true;
         Post existingPost = Post.builder()
                 .id(id)
-                .likesCount(likesCount)
                 .build();
 
         when(postRepository.findById(id)).thenReturn(Optional.ofNullable(existingPost));
+        when(postRepository.deleteById(id)).thenReturn(1, 0);
+
         //when
-        postService.likePost(id, increase);
+        postService.deletePost(id);
+        postService.deletePost(id);
+
         //then
-        verify(postRepository, times(1)).update(argThat(post -> post.getId().equals(id) &&
-                post.getLikesCount() == 1));
+        verify(postCounter).afterChange(-1);
+        verify(postCounter).afterChange(0);
+    }
+
+    @Test
+    public void likePost_shouldBufferLike_withoutTouchingPost() {
+        //given
+        Long id = 1L;
+
+        //when
+        postService.likePost(id, true);
+        postService.likePost(id, false);
+
+        //then
+        verify(likeBuffer, times(1)).add(id, 1);
+        verify(likeBuffer, times(1)).add(id, -1);
+        verify(postRepository, never()).findById(any());
+        verify(postRepository, never()).update(any());
+    }
+
+    @Test
+    public void getPostById_shouldMergePendingLikes() {
+        //given
+        Long id = 1L;
+        when(postRepository.findById(id)).thenReturn(Optional.of(Post.builder()
+                .id(id)
+                .likesCount(3)
+                .build()));
+        when(likeBuffer.pending(id)).thenReturn(-5L);
+
+        //when
+        Post post = postService.getPostById(id).orElseThrow();
+
+        //then
+        assertEquals(0, post.getLikesCount());
+    }
+
+    @Test
+    public void getPostById_shouldServeRepeatedReadsFromCache_untilCommentAdded() {
+        //given
+        Long id = 7L;
+        when(postRepository.findById(id)).thenReturn(Optional.of(Post.builder().id(id).build()));
+
+        //when
+        postService.getPostById(id);
+        postService.getPostById(id);
+        postService.addCommentToPost(id, "text");
+        postService.getPostById(id);
+
+        //then
+        verify(postRepository, times(2)).findById(id);
     }
 
     @Test
@@ -163,63 +253,179 @@ class PostServiceImplTest {
         String search = "search";
         int pageSize = 5;
         int pageNumber = 1;
-        Long postId = 1L;
+        long postId = 1L;
 
-        Post post = Post.builder()
-                .id(postId)
-                .build();
-        List<Post> posts = List.of(post);
+        PostSummary post = new PostSummary(postId, "title", null, List.of(), "preview", 2, 1, 0);
 
-        when(postRepository.findAll(search, pageSize, pageNumber)).thenReturn(posts);
+        when(postRepository.findSlice(search, 0, pageSize + 1)).thenReturn(List.of(post));
+        when(likeBuffer.pending(postId)).thenReturn(3L);
 
-        Comment comment = Comment.builder()
-                .id(10L)
-                .text("text")
-                .build();
-        List<Comment> comments = List.of(comment);
+        //when
+        List<PostSummary> result = postService.getAllPosts(search, pageSize, pageNumber).posts();
 
-        when(commentRepository.findByPostId(postId)).thenReturn(comments);
+        //then
+        assertEquals(1, result.size());
+        assertEquals(postId, result.get(0).id());
+        assertEquals(1, result.get(0).commentsCount());
+        assertEquals(5, result.get(0).likesCount());
+
+        verify(postRepository, times(1)).findSlice(eq(search), eq(0L), eq(pageSize + 1));
+        verify(postRepository, never()).countPosts(any());
+        verifyNoInteractions(commentRepository);
+    }
+
+    @Test
+    public void getAllPosts_shouldDetectNextPageByExtraRow() {
+        //given
+        List<PostSummary> rows = List.of(summary(30L), summary(20L), summary(10L));
+
+        when(postRepository.findSlice("", 4L, 3)).thenReturn(rows);
 
         //when
-        List<Post> result = postService.getAllPosts(search, pageSize, pageNumber);
+        PostSlice slice = postService.getAllPosts("", 2, 3);
 
         //then
-        assertEquals(1, result.size());
-        assertEquals(postId, result.get(0).getId());
-        assertEquals(1, result.get(0).getComments().size());
-        assertEquals("text", result.get(0).getComments().get(0).getText());
+        assertEquals(List.of(30L, 20L), slice.posts().stream().map(PostSummary::id).toList());
+        assertTrue(slice.hasNext());
+        assertTrue(slice.hasPrevious());
+        verify(postRepository, never()).countPosts(any());
+    }
 
-        verify(postRepository, times(1)).findAll(eq(search), eq(pageSize), eq(pageNumber));
-        verify(commentRepository, times(1)).findByPostId(eq(postId));
+    @Test
+    public void getPostsPage_shouldFetchOneExtraRowToDetectNextPage() {
+        //given
+        List<PostSummary> rows = List.of(summary(30L), summary(20L), summary(10L));
+
+        when(postRepository.findPage("", 40L, null, 3)).thenReturn(rows);
+
+        //when
+        PostSlice slice = postService.getPostsPage("", 40L, null, 2);
+
+        //then
+        assertEquals(List.of(30L, 20L), slice.posts().stream().map(PostSummary::id).toList());
+        assertTrue(slice.hasNext());
+        assertTrue(slice.hasPrevious());
+        verifyNoInteractions(commentRepository);
     }
 
     @Test
-    public void getPostById_shouldReturnOptionalPost_whenIdValid() {
+    public void getPostsPage_shouldDropExtraRowFromTheTop_whenPagingBackwards() {
+        //given
+        List<PostSummary> rows = List.of(summary(30L), summary(20L), summary(10L));
+
+        when(postRepository.findPage("", null, 5L, 3)).thenReturn(rows);
+
+        //when
+        PostSlice slice = postService.getPostsPage("", null, 5L, 2);
+
+        //then
+        assertEquals(List.of(20L, 10L), slice.posts().stream().map(PostSummary::id).toList());
+        assertTrue(slice.hasNext());
+        assertTrue(slice.hasPrevious());
+    }
+
+    @Test
+    public void getPostsPage_shouldCapPageSize() {
+        //when
+        PostSlice slice = postService.getPostsPage("", null, null, 100_000);
+
+        //then
+        assertFalse(slice.hasNext());
+        assertFalse(slice.hasPrevious());
+        verify(postRepository, times(1)).findPage("", null, null, Paging.MAX_PAGE_SIZE + 1);
+    }
+
+    @Test
+    public void getPostsPage_shouldFilterByTagIndex_whenIndexReady() {
+        //given
+        TagQuery query = TagQuery.parse("java");
+        long[] ids = {7L, 3L};
+        List<PostSummary> posts = List.of(summary(7L), summary(3L));
+
+        when(tagIndex.isReady()).thenReturn(true);
+        when(tagIndex.page(query, null, null, 11)).thenReturn(ids);
+        when(postRepository.findSummariesByIds(ids)).thenReturn(posts);
+
+        //when
+        PostSlice slice = postService.getPostsPage("java", null, null, 10);
+
+        //then
+        assertEquals(posts, slice.posts());
+        assertFalse(slice.hasNext());
+        verify(postRepository, never()).findPage(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    public void countPosts_shouldUseTagIndex_whenIndexReady() {
+        //given
+        when(tagIndex.isReady()).thenReturn(true);
+        when(tagIndex.count(TagQuery.parse("java spring"))).thenReturn(42L);
+
+        //when
+        int result = postService.countPosts("java spring");
+
+        //then
+        assertEquals(42, result);
+        verify(postRepository, never()).countPosts(any());
+    }
+
+    @Test
+    public void createUpdateDeletePost_shouldKeepTagIndexUpToDate() {
+        //given
+        when(postRepository.save(any(Post.class))).thenReturn(Post.builder().id(5L).build());
+        when(postRepository.findById(5L)).thenReturn(Optional.of(Post.builder()
+                .id(5L)
+                .tags(List.of("java"))
+                .build()));
+
+        //when
+        postService.createPost("title", "text", "java", null);
+        postService.updatePost(5L, "title", "text", "kotlin", null);
+        postService.deletePost(5L);
+
+        //then
+        verify(tagIndex).add(5L, List.of("java"));
+        verify(tagIndex).replace(5L, List.of("java"), List.of("kotlin"));
+        verify(tagIndex).remove(eq(5L), any());
+    }
+
+    @Test
+    public void getPostById_shouldReturnOptionalPost_withoutLoadingComments() {
         //given
         Long id = 1L;
 
-        Post post = Post.builder().id(id).build();
+        Post post = Post.builder().id(id).commentsCount(5000).build();
         Optional<Post> optional = Optional.of(post);
 
         when(postRepository.findById(id)).thenReturn(optional);
 
-        Comment comment = Comment.builder()
-                .id(100L)
-                .text("text")
-                .build();
-        List<Comment> comments = List.of(comment);
-
-        when(commentRepository.findByPostId(id)).thenReturn(comments);
-
         //when
         Optional<Post> optionalResult = postService.getPostById(id);
 
         //then
         assertEquals(1L, optionalResult.get().getId());
-        assertEquals(comments, optionalResult.get().getComments());
+        assertEquals(5000, optionalResult.get().getCommentsCount());
 
         verify(postRepository, times(1)).findById(eq(id));
-        verify(commentRepository, times(1)).findByPostId(eq(id));
+        verifyNoInteractions(commentRepository);
+    }
+
+    @Test
+    public void getComments_shouldFetchOneExtraRowToDetectNextPage() {
+        //given
+        List<Comment> rows = List.of(
+                Comment.builder().id(5L).build(),
+                Comment.builder().id(4L).build(),
+                Comment.builder().id(3L).build());
+
+        when(commentRepository.findPage(1L, 6L, true, 3)).thenReturn(rows);
+
+        //when
+        CommentPage page = postService.getComments(1L, 6L, true, 2);
+
+        //then
+        assertEquals(List.of(5L, 4L), page.comments().stream().map(Comment::getId).toList());
+        assertTrue(page.hasNext());
     }
 
     @Test
@@ -232,6 +438,7 @@ class PostServiceImplTest {
         postService.deleteComment(id, commentId);
         //then
         verify(commentRepository, times(1)).delete(id, commentId);
+        verify(fullTextIndex).reindex(id);
     }
 
     @Test
@@ -247,4 +454,28 @@ class PostServiceImplTest {
         assertEquals(100, result);
         verify(postRepository, times(1)).countPosts(search);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void countPosts_shouldServeCachedCount_untilPostsChange() {
+        //given
+        String search = "cached";
+        when(postRepository.countPosts(search)).thenReturn(3, 4);
+        when(postRepository.save(any(Post.class))).thenReturn(Post.builder().id(1L).build());
+
+        //when
+        int first = postService.countPosts(search);
+        int cached = postService.countPosts(search);
+        postService.createPost("title", "text", search, null);
+        int afterCreate = postService.countPosts(search);
+
+        //then
+        assertEquals(3, first);
+        assertEquals(3, cached);
+        assertEquals(4, afterCreate);
+        verify(postRepository, times(2)).countPosts(search);
+    }
+
+    private static PostSummary summary(long id) {
+        return new PostSummary(id, "title" + id, null, List.of(), "", 0, 0, 0);
+    }
+}
@@ -0,0 +1,81 @@
+package com.jonyshev.service;
+
+import com.jonyshev.model.TagQuery;
+import com.jonyshev.repository.PostRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.function.ObjLongConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+@ExtendWith(MockitoExtension.class)
+class TagIndexTest {
+
+    @Mock
+    private PostRepository postRepository;
+
+    @InjectMocks
+    private TagIndex tagIndex;
+
+    @BeforeEach
+    void setUp() {
+        doAnswer(invocation -> {
+            ObjLongConsumer<List<String>> consumer = invocation.getArgument(0);
+            consumer.accept(List.of("java", "spring"), 1L);
+            consumer.accept(List.of("Java", "sql"), 2L);
+            consumer.accept(List.of("javascript"), 3L);
+            consumer.accept(List.of("kotlin", "spring"), 4L);
+            consumer.accept(List.of("java"), 5L);
+            return null;
+        }).when(postRepository).forEachPostTags(any());
+
+        tagIndex.afterSingletonsInstantiated();
+    }
+
+    @Test
+    void afterSingletonsInstantiated_shouldBuildIndexFromRepository() {
+        assertTrue(tagIndex.isReady());
+        assertEquals(3, tagIndex.count(TagQuery.parse("java")));
+    }
+
+    @Test
+    void count_shouldSupportAndOrAndPrefix() {
+        assertEquals(1, tagIndex.count(TagQuery.parse("java spring")));
+        assertEquals(3, tagIndex.count(TagQuery.parse("sql|spring")));
+        assertEquals(4, tagIndex.count(TagQuery.parse("jav*")));
+        assertEquals(2, tagIndex.count(TagQuery.parse("jav*|kot* spring")));
+        assertEquals(0, tagIndex.count(TagQuery.parse("java missing")));
+    }
+
+    @Test
+    void page_shouldReturnIdsNewestFirst() {
+        TagQuery query = TagQuery.parse("jav*");
+
+        assertArrayEquals(new long[]{5, 3}, tagIndex.slice(query, 0, 2));
+        assertArrayEquals(new long[]{2, 1}, tagIndex.slice(query, 2, 2));
+        assertArrayEquals(new long[]{3, 2}, tagIndex.page(query, 5L, null, 2));
+        assertArrayEquals(new long[]{5, 3}, tagIndex.page(query, null, 2L, 2));
+        assertArrayEquals(new long[]{5}, tagIndex.page(query, null, 3L, 2));
+    }
+
+    @Test
+    void addRemoveReplace_shouldKeepIndexUpToDate() {
+        tagIndex.add(6L, List.of("java"));
+        tagIndex.remove(5L, List.of("java"));
+        tagIndex.replace(1L, List.of("java", "spring"), List.of("kotlin"));
+
+        assertArrayEquals(new long[]{6, 2}, tagIndex.slice(TagQuery.parse("java"), 0, 10));
+        assertEquals(2, tagIndex.count(TagQuery.parse("kotlin")));
+        assertEquals(1, tagIndex.count(TagQuery.parse("spring")));
+    }
+}